@@ -0,0 +1,98 @@
+package gr.aueb.cf.schoolapp.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures adding to and looking up in the association sets of the model, against sets of growing size:
+ * the enrollments of a course, the courses of a teacher and the students of a city. Entities hash on
+ * their id, so the cost of each operation should not grow with the set.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EnrollmentBenchmark {
+
+    @Param({"10", "100000"})
+    private int size;
+
+    private Course course;
+    private Teacher teacher;
+    private City city;
+    private Student enrolled;
+    private Student newcomer;
+    private Course taught;
+    private Course newCourse;
+    private Student resident;
+
+    @Setup
+    public void setUp() {
+        course = course(1L);
+        teacher = new Teacher();
+        teacher.setId(1L);
+        city = new City();
+        city.setId(1L);
+        for (long id = 1; id <= size; id++) {
+            Student student = student(id);
+            course.getEnrollments().add(new Enrollment(student, course));
+            teacher.getCourses().add(course(id + 1));
+            city.getStudents().add(student);
+        }
+        enrolled = student(size / 2 + 1L);
+        newcomer = student(size + 1L);
+        taught = course(size / 2 + 1L);
+        newCourse = course(size + 2L);
+        resident = student(size / 2 + 1L);
+    }
+
+    @Benchmark
+    public boolean enrollAndUnenroll() {
+        Enrollment enrollment = new Enrollment(newcomer, course);
+        course.getEnrollments().add(enrollment);
+        return course.getEnrollments().remove(enrollment);
+    }
+
+    @Benchmark
+    public boolean isEnrolled() {
+        return course.getEnrollments().contains(new Enrollment(enrolled, course));
+    }
+
+    @Benchmark
+    public boolean addAndRemoveTeacherCourse() {
+        teacher.getCourses().add(newCourse);
+        return teacher.getCourses().remove(newCourse);
+    }
+
+    @Benchmark
+    public boolean teachesCourse() {
+        return teacher.getCourses().contains(taught);
+    }
+
+    @Benchmark
+    public boolean addAndRemoveCityStudent() {
+        city.getStudents().add(newcomer);
+        return city.getStudents().remove(newcomer);
+    }
+
+    @Benchmark
+    public boolean livesInCity() {
+        return city.getStudents().contains(resident);
+    }
+
+    private static Course course(long id) {
+        Course course = new Course();
+        course.setId(id);
+        course.setCourseName("Course" + id);
+        return course;
+    }
+
+    private static Student student(long id) {
+        Student student = new Student();
+        student.setId(id);
+        student.setFirstname("Student");
+        student.setLastname("Student" + id);
+        return student;
+    }
+}
@@ -0,0 +1,110 @@
+package gr.aueb.cf.schoolapp.repositories;
+
+import gr.aueb.cf.schoolapp.model.AbstractEntity;
+import gr.aueb.cf.schoolapp.model.Gender;
+import gr.aueb.cf.schoolapp.model.Student;
+import gr.aueb.cf.schoolapp.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many students, each with its user, Hibernate inserts per second in one transaction,
+ * the way a bulk registration does. With a batch size of 0 every row is its own round trip, as it was
+ * while IDs came from IDENTITY columns; with the configured batch size of 50 the pooled table
+ * generator assigns IDs on persist and the ordered inserts go out in batches.
+ * Runs on an embedded H2 database unless {@code -Dbenchmark.jdbc.url} (with {@code .username} and
+ * {@code .password}) points to a scratch MySQL schema, where the round trips saved are real network trips.
+ * The schema is created and dropped by the benchmark. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class InsertThroughputBenchmark {
+    private static final int ROWS = 1000;
+
+    @Param({"0", "50"})
+    private int batchSize;
+
+    private LocalContainerEntityManagerFactoryBean factoryBean;
+    private EntityManagerFactory factory;
+    private int round;
+
+    @Setup
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"),
+                System.getProperty("benchmark.jdbc.username", "sa"),
+                System.getProperty("benchmark.jdbc.password", ""));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+        properties.put(AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName());
+        properties.put(AvailableSettings.IMPLICIT_NAMING_STRATEGY, SpringImplicitNamingStrategy.class.getName());
+        properties.put(AvailableSettings.GLOBALLY_QUOTED_IDENTIFIERS, "true");
+        properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(batchSize));
+        properties.put(AvailableSettings.ORDER_INSERTS, "true");
+
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(AbstractEntity.class.getPackageName());
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(properties);
+        factoryBean.setPersistenceUnitName("insert-benchmark");
+        factoryBean.afterPropertiesSet();
+        factory = factoryBean.getObject();
+    }
+
+    @TearDown
+    public void tearDown() {
+        factoryBean.destroy();
+    }
+
+    /**
+     * Deletes the rows of the previous invocation, so that every invocation inserts into tables of the same size.
+     */
+    @TearDown(Level.Invocation)
+    public void deleteRows() {
+        EntityManager entityManager = factory.createEntityManager();
+        entityManager.getTransaction().begin();
+        entityManager.createQuery("delete from Student").executeUpdate();
+        entityManager.createQuery("delete from User").executeUpdate();
+        entityManager.getTransaction().commit();
+        entityManager.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void insertStudents() {
+        round++;
+        EntityManager entityManager = factory.createEntityManager();
+        entityManager.getTransaction().begin();
+        for (int i = 0; i < ROWS; i++) {
+            // Auditing needs the Spring context, so the creation time is set here.
+            LocalDateTime now = LocalDateTime.now();
+            User user = User.NEW_STUDENT("student" + round + "-" + i, "password");
+            user.setCreatedAt(now);
+            Student student = new Student();
+            student.setFirstname("Student");
+            student.setLastname("Student" + i);
+            student.setGender(Gender.F);
+            student.setEmail("student" + round + "-" + i + "@aueb.gr");
+            student.setCreatedAt(now);
+            student.addUser(user);
+            entityManager.persist(student);
+        }
+        entityManager.getTransaction().commit();
+        entityManager.close();
+    }
+}
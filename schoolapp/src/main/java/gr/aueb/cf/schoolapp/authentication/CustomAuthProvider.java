@@ -1,15 +1,20 @@
 package gr.aueb.cf.schoolapp.authentication;
 
+import gr.aueb.cf.schoolapp.authentication.util.PasswordEncoderFactory;
+import gr.aueb.cf.schoolapp.authentication.util.PasswordHashingService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
 /**
  * Configuration class for custom authentication providers and related beans.
  * This class sets up the authentication provider, authentication manager,
@@ -25,13 +30,14 @@ public class CustomAuthProvider {
      * Defines the authentication provider bean.
      * Uses {@link DaoAuthenticationProvider} with a custom user details service and password encoder.
      *
+     * @param passwordEncoder the password encoder
      * @return the authentication provider
      */
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -51,12 +57,23 @@ public class CustomAuthProvider {
 
     /**
      * Defines the password encoder bean.
-     * Uses {@link BCryptPasswordEncoder} for encoding passwords.
+     * Uses the algorithm and cost configured in {@link PasswordEncoderFactory} for encoding passwords,
+     * run on the bounded pool of {@link PasswordHashingService} so that hashing never runs on request threads.
      *
+     * @param encoderFactory the factory of the underlying encoder
+     * @param threads       the number of hashing threads, by default one per core
+     * @param queueCapacity the number of hashes that may wait for a thread
+     * @param retryAfter    the delay suggested to clients rejected because the queue is full
+     * @param meterRegistry the registry of the hashing metrics
      * @return the password encoder
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordHashingService passwordEncoder(PasswordEncoderFactory encoderFactory,
+                                                  @Value("${security.password-hashing.threads:0}") int threads,
+                                                  @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                                  @Value("${security.password-hashing.retry-after:PT1S}") Duration retryAfter,
+                                                  MeterRegistry meterRegistry) {
+        int poolSize = (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+        return new PasswordHashingService(encoderFactory.create(), poolSize, queueCapacity, retryAfter, meterRegistry);
     }
 }
@@ -1,20 +1,47 @@
 package gr.aueb.cf.schoolapp.authentication;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import gr.aueb.cf.schoolapp.authentication.util.CachedUserDetails;
 import gr.aueb.cf.schoolapp.repositories.UserRepository;
-import lombok.RequiredArgsConstructor;
+import gr.aueb.cf.schoolapp.service.events.UserChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
 
 /**
  * Custom implementation of {@link UserDetailsService} to load user-specific data.
- * This service fetches user details from the {@link UserRepository} based on the username.
+ * This service fetches user details from the {@link UserRepository} based on the username
+ * and keeps them in a bounded cache, so repeat authentications of the same user do not reach the database.
+ * Entries expire after a fixed time and are dropped as soon as a change to the user is committed.
+ * Hits, misses and evictions are published as the {@code cache.*} metrics tagged {@code cache=users}.
  */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class CustomUserDetailsService implements UserDetailsService {
     private final UserRepository userRepository;
+    private final Cache<String, CachedUserDetails> cache;
+
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${security.user-cache.max-size:10000}") long maxSize,
+                                    @Value("${security.user-cache.ttl:PT5M}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
 
     /**
      * Loads the user details by username.
@@ -25,7 +52,20 @@ public class CustomUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User with username: " + username + " not found"));
+        return cache.get(username, key -> userRepository.findByUsername(key)
+                .map(CachedUserDetails::of)
+                .orElseThrow(() -> new UsernameNotFoundException("User with username: " + key + " not found")));
+    }
+
+    /**
+     * Drops the cached details of a user once the change to the user is committed,
+     * so that a concurrent request cannot cache the state from before the change.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        cache.invalidate(event.getUsername());
+        log.info("Cached details of user " + event.getUsername() + " were invalidated");
     }
 }
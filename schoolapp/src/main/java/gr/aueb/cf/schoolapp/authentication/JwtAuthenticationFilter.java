@@ -1,7 +1,11 @@
 package gr.aueb.cf.schoolapp.authentication;
 
+import gr.aueb.cf.schoolapp.authentication.util.JwtPrincipal;
 import gr.aueb.cf.schoolapp.authentication.util.JwtUtil;
+import gr.aueb.cf.schoolapp.authentication.util.TokenDenyList;
+import gr.aueb.cf.schoolapp.authentication.util.VerifiedToken;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,6 +13,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -32,10 +37,21 @@ import java.util.List;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final TokenDenyList tokenDenyList;
+
+    /**
+     * When set, the principal is built from the claims of the token and the
+     * user is not loaded from the database. Tokens issued before the user
+     * identifier was added to the claims are still authenticated against the database.
+     */
+    @Value("${security.jwt.stateless:true}")
+    private boolean stateless;
 
     /**
      * Filters incoming HTTP requests to check for JWT tokens in the Authorization header.
-     * Validates the token and sets the authentication in the security context if the token is valid.
+     * The token is parsed and verified once; the verified claims are stored as a request attribute
+     * and the authentication is set in the security context if the token is valid and not revoked.
+     * In stateless mode the principal is a {@link JwtPrincipal} built from the claims.
      *
      * @param request the HTTP request
      * @param response the HTTP response
@@ -50,28 +66,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        String username = null;
-        String jwtToken = null;
+        VerifiedToken token = null;
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwtToken = authHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwtToken);
+                token = jwtUtil.verify(authHeader.substring(7));
+                request.setAttribute(VerifiedToken.REQUEST_ATTRIBUTE, token);
             } catch (IllegalArgumentException e) {
-                System.out.println("Unable to get JWT Token");
+                log.warn("Unable to get JWT Token");
             } catch (ExpiredJwtException e) {
-                System.out.println("JWT Token has expired");
+                log.warn("JWT Token has expired");
+            } catch (JwtException e) {
+                log.warn("Invalid JWT Token");
             }
         } else {
             log.warn("JWT Token does not begin with Bearer String");
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if (token != null && token.getUsername() != null && token.getRole() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = null;
+            if (tokenDenyList.isRevoked(token)) {
+                log.warn("JWT Token has been revoked");
+            } else if (stateless && token.getUserId() != null) {
+                userDetails = new JwtPrincipal(token);
+            } else {
+                userDetails = this.userDetailsService.loadUserByUsername(token.getUsername());
+                if (!jwtUtil.isTokenValid(token, userDetails)) {
+                    userDetails = null;
+                }
+            }
 
-            if (jwtUtil.isTokenValid(jwtToken, userDetails)) {
-                String role = jwtUtil.extractRole(jwtToken).name();
-                List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(role));
+            if (userDetails != null) {
+                List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(token.getRole().name()));
 
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, authorities);
@@ -0,0 +1,126 @@
+package gr.aueb.cf.schoolapp.authentication;
+
+import gr.aueb.cf.schoolapp.authentication.util.VerifiedToken;
+import gr.aueb.cf.schoolapp.dto.StudentUpdateDTO;
+import gr.aueb.cf.schoolapp.dto.TeacherUpdateDTO;
+import gr.aueb.cf.schoolapp.dto.UserUpdateDTO;
+import gr.aueb.cf.schoolapp.model.Role;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Objects;
+
+/**
+ * Row-level authorization: checks that the caller owns the student, teacher or user a request is about.
+ * Ownership is read from the claims of the verified token of the request, which carry the IDs of the
+ * user and of the linked student or teacher, so the checks cost no database access.
+ * Admins own everything. Used from {@code @PreAuthorize} expressions as {@code @ownership}.
+ */
+@Component("ownership")
+public class OwnershipAuthorization {
+
+    /**
+     * Checks whether the caller is the given student, or an admin.
+     *
+     * @param studentId the ID of the student
+     * @return true if the caller may access the student
+     */
+    public boolean isStudent(Long studentId) {
+        VerifiedToken token = currentToken();
+        return token != null && (isAdmin(token) || (studentId != null && studentId.equals(token.getStudentId())));
+    }
+
+    /**
+     * Checks whether the caller is the given teacher, or an admin.
+     *
+     * @param teacherId the ID of the teacher
+     * @return true if the caller may access the teacher
+     */
+    public boolean isTeacher(Long teacherId) {
+        VerifiedToken token = currentToken();
+        return token != null && (isAdmin(token) || (teacherId != null && teacherId.equals(token.getTeacherId())));
+    }
+
+    /**
+     * Checks whether the caller is the given user, or an admin.
+     *
+     * @param userId the ID of the user
+     * @return true if the caller may access the user
+     */
+    public boolean isUser(Long userId) {
+        VerifiedToken token = currentToken();
+        return token != null && (isAdmin(token) || (userId != null && userId.equals(token.getUserId())));
+    }
+
+    /**
+     * Checks whether the caller has the given username, or is an admin.
+     *
+     * @param username the username
+     * @return true if the caller may access the user
+     */
+    public boolean isUsername(String username) {
+        VerifiedToken token = currentToken();
+        return token != null && (isAdmin(token) || (username != null && username.equals(token.getUsername())));
+    }
+
+    /**
+     * Checks whether the caller may apply an update to a user: an admin may apply any update,
+     * other users may update only themselves and may not change their role or linked student or teacher.
+     *
+     * @param userId the ID of the user
+     * @param dto    the update
+     * @return true if the caller may apply the update
+     */
+    public boolean canUpdateUser(Long userId, UserUpdateDTO dto) {
+        VerifiedToken token = currentToken();
+        if (token == null) return false;
+        if (isAdmin(token)) return true;
+        return userId != null && userId.equals(token.getUserId())
+                && dto.getRole() == token.getRole()
+                && (dto.getStudent() == null || Objects.equals(dto.getStudent().getId(), token.getStudentId()))
+                && (dto.getTeacher() == null || Objects.equals(dto.getTeacher().getId(), token.getTeacherId()));
+    }
+
+    /**
+     * Checks whether the caller may apply an update to a student: an admin may apply any update,
+     * the student may update only themselves and may not link the student to another user.
+     *
+     * @param studentId the ID of the student
+     * @param dto       the update
+     * @return true if the caller may apply the update
+     */
+    public boolean canUpdateStudent(Long studentId, StudentUpdateDTO dto) {
+        VerifiedToken token = currentToken();
+        if (token == null) return false;
+        if (isAdmin(token)) return true;
+        return studentId != null && studentId.equals(token.getStudentId())
+                && (dto.getUser() == null || Objects.equals(dto.getUser().getId(), token.getUserId()));
+    }
+
+    /**
+     * Checks whether the caller may apply an update to a teacher: an admin may apply any update,
+     * the teacher may update only themselves and may not link the teacher to another user.
+     *
+     * @param teacherId the ID of the teacher
+     * @param dto       the update
+     * @return true if the caller may apply the update
+     */
+    public boolean canUpdateTeacher(Long teacherId, TeacherUpdateDTO dto) {
+        VerifiedToken token = currentToken();
+        if (token == null) return false;
+        if (isAdmin(token)) return true;
+        return teacherId != null && teacherId.equals(token.getTeacherId())
+                && (dto.getUser() == null || Objects.equals(dto.getUser().getId(), token.getUserId()));
+    }
+
+    private static boolean isAdmin(VerifiedToken token) {
+        return token.getRole() == Role.ADMIN;
+    }
+
+    private static VerifiedToken currentToken() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return (attributes == null) ? null
+                : (VerifiedToken) attributes.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+}
@@ -0,0 +1,139 @@
+package gr.aueb.cf.schoolapp.authentication;
+
+import gr.aueb.cf.schoolapp.authentication.util.RateLimiter;
+import gr.aueb.cf.schoolapp.model.Role;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filter that limits how fast and how many requests at once each authenticated user may make,
+ * so that one misbehaving client cannot slow the application down for everyone else.
+ * Runs after {@link JwtAuthenticationFilter}; unauthenticated requests are left to the login throttle.
+ * The limits are set per role under {@code security.rate-limit.roles.<ROLE>} and default to
+ * the ones under {@code security.rate-limit}. Every limited response carries the
+ * {@code RateLimit-Policy}, {@code RateLimit-Limit}, {@code RateLimit-Remaining} and {@code RateLimit-Reset} headers;
+ * a rejected request gets 429 with a Retry-After header.
+ * Rejections are counted in {@code api.rate-limited}, tagged by the limit that rejected them.
+ */
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final boolean enabled;
+    private final Map<Role, RateLimiter> limiters = new EnumMap<>(Role.class);
+    private final Map<Role, Integer> maxConcurrent = new EnumMap<>(Role.class);
+    private final Map<String, Integer> inFlight = new ConcurrentHashMap<>();
+    private final Counter rateRejections;
+    private final Counter concurrencyRejections;
+
+    public RateLimitFilter(Environment environment, MeterRegistry meterRegistry) {
+        this.enabled = environment.getProperty("security.rate-limit.enabled", Boolean.class, true);
+        int capacity = environment.getProperty("security.rate-limit.capacity", Integer.class, 120);
+        Duration period = environment.getProperty("security.rate-limit.period", Duration.class, Duration.ofMinutes(1));
+        int concurrent = environment.getProperty("security.rate-limit.max-concurrent", Integer.class, 8);
+        long maxKeys = environment.getProperty("security.rate-limit.max-keys", Long.class, 100000L);
+        for (Role role : Role.values()) {
+            String prefix = "security.rate-limit.roles." + role.name();
+            limiters.put(role, new RateLimiter(
+                    environment.getProperty(prefix + ".capacity", Integer.class, capacity),
+                    environment.getProperty(prefix + ".period", Duration.class, period),
+                    maxKeys));
+            maxConcurrent.put(role, environment.getProperty(prefix + ".max-concurrent", Integer.class, concurrent));
+        }
+        this.rateRejections = Counter.builder("api.rate-limited").tag("limit", "rate").register(meterRegistry);
+        this.concurrencyRejections = Counter.builder("api.rate-limited").tag("limit", "concurrency").register(meterRegistry);
+    }
+
+    /**
+     * Takes a token from the bucket of the authenticated user and admits the request
+     * if one was available and the user has fewer requests in progress than allowed.
+     *
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param filterChain the filter chain
+     * @throws ServletException if an error occurs during the filter process
+     * @throws IOException if an I/O error occurs during the filter process
+     */
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Role role = (authentication == null || !authentication.isAuthenticated()) ? null : roleOf(authentication);
+        if (!enabled || role == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String subject = authentication.getName();
+        RateLimiter limiter = limiters.get(role);
+        RateLimiter.Decision decision = limiter.acquire(subject);
+        response.setHeader("RateLimit-Policy", limiter.getCapacity() + ";w=" + limiter.getPeriod().toSeconds());
+        response.setHeader("RateLimit-Limit", String.valueOf(decision.getLimit()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(decision.getRemaining()));
+        response.setHeader("RateLimit-Reset", String.valueOf(decision.getResetSeconds()));
+        if (!decision.isAllowed()) {
+            rateRejections.increment();
+            log.warn("Request of user " + subject + " exceeded the rate limit");
+            reject(response, decision.getRetryAfterSeconds());
+            return;
+        }
+
+        int limit = maxConcurrent.get(role);
+        if (inFlight.merge(subject, 1, Integer::sum) > limit) {
+            release(subject);
+            concurrencyRejections.increment();
+            log.warn("Request of user " + subject + " exceeded the concurrency limit");
+            reject(response, 1);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            release(subject);
+        }
+    }
+
+    /**
+     * Counts a request of a user as finished, dropping the entry of a user with none left
+     * so that the map only holds users with requests in progress.
+     */
+    private void release(String subject) {
+        inFlight.computeIfPresent(subject, (key, count) -> (count > 1) ? count - 1 : null);
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfterSeconds)));
+    }
+
+    private static Role roleOf(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            for (Role role : Role.values()) {
+                if (role.name().equals(authority.getAuthority())) return role;
+            }
+        }
+        return null;
+    }
+}
@@ -1,14 +1,17 @@
 package gr.aueb.cf.schoolapp.authentication;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -18,13 +21,19 @@ import java.util.List;
 
 /**
  * Security configuration class for setting up authentication, authorization, and CORS configurations.
+ * Requests are authorized by role here; access to single students, teachers and users is further
+ * restricted to their owners by the {@code @PreAuthorize} checks of {@link OwnershipAuthorization}.
+ * A request without a valid token, such as one whose token was revoked on logout, gets 401;
+ * an authenticated request that is not allowed gets 403.
  */
 @EnableWebSecurity
+@EnableMethodSecurity
 @Configuration
 @RequiredArgsConstructor
 public class SecurityConfig {
     private final AuthenticationProvider authenticationProvider;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
 
     /**
      * Defines the CORS configuration source.
@@ -63,9 +72,14 @@ public class SecurityConfig {
                                                 "/swagger-ui/**",
                                                 "/swagger-ui.html",
                                                 "/api/login/",
+                                                "/api/refresh",
                                                 "/api/register/",
                                                 "/api/register-student",
                                                 "/api/register-teacher").permitAll()
+                                        .requestMatchers("/actuator/**").hasAuthority("ADMIN")
+                                        .requestMatchers("/api/users/*/revoke-tokens").hasAuthority("ADMIN")
+                                        .requestMatchers("/api/exports/**").hasAuthority("ADMIN")
+                                        .requestMatchers("/api/imports/**").hasAuthority("ADMIN")
                                         .requestMatchers("/api/students/**").hasAnyAuthority("ADMIN", "STUDENT")
                                         .requestMatchers("/api/teachers/**").hasAnyAuthority("TEACHER", "ADMIN")
                                         .requestMatchers("/api/cities/**").hasAnyAuthority("ADMIN", "STUDENT")
@@ -74,8 +88,12 @@ public class SecurityConfig {
                                         .requestMatchers("/api/users/**").hasAnyAuthority("ADMIN", "STUDENT", "TEACHER")
                                         .anyRequest().authenticated())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
+                )
                 .authenticationProvider(authenticationProvider)
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
         return http.build();
     }
 
@@ -0,0 +1,54 @@
+package gr.aueb.cf.schoolapp.authentication.util;
+
+import gr.aueb.cf.schoolapp.model.Role;
+import gr.aueb.cf.schoolapp.model.User;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable copy of the authentication data of a {@link User}.
+ * Unlike the entity, it holds no persistence state and can be shared across requests and threads.
+ */
+@Getter
+public final class CachedUserDetails implements UserDetails {
+    private final Long userId;
+    private final String username;
+    private final String password;
+    private final Role role;
+    private final boolean enabled;
+    private final Long studentId;
+    private final Long teacherId;
+
+    private CachedUserDetails(User user) {
+        this.userId = user.getId();
+        this.username = user.getUsername();
+        this.password = user.getPassword();
+        this.role = user.getRole();
+        this.enabled = user.isEnabled();
+        this.studentId = (user.getStudent() == null) ? null : user.getStudent().getId();
+        this.teacherId = (user.getTeacher() == null) ? null : user.getTeacher().getId();
+    }
+
+    public static CachedUserDetails of(User user) {
+        return new CachedUserDetails(user);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role.name()));
+    }
+
+    @Override
+    public String toString() {
+        return "CachedUserDetails{" +
+                "userId=" + userId +
+                ", username='" + username + '\'' +
+                ", role=" + role +
+                '}';
+    }
+}
@@ -0,0 +1,268 @@
+package gr.aueb.cf.schoolapp.authentication.util;
+
+import io.jsonwebtoken.Jwts;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Keyring of the HMAC keys used to sign and verify JWTs.
+ * The keys are kept in a PKCS12 keystore file, so that every node reading the same file
+ * accepts the tokens of every other node and tokens survive restarts.
+ * Each key is stored under an alias {@code jwt-<epoch second>}, which is also the {@code kid}
+ * header of the tokens it signs. Every key young enough to have signed a token that has not yet
+ * expired verifies. Nodes reload the file when it changes, so a new key signs only once it is older
+ * than the reload interval, by when every node verifies with it; until then the previous key signs.
+ * A missing file is created by the first node to start; nodes starting alongside it load its key.
+ * Rotation rewrites the whole file, so it must be enabled on one node only. That node adds a new key
+ * once the newest key is older than the rotation interval and removes keys that can no longer verify.
+ */
+@Component
+@Slf4j
+public class JwtKeyring {
+    private static final String ALIAS_PREFIX = "jwt-";
+
+    private final Path path;
+    private final char[] password;
+    private final boolean rotationEnabled;
+    private final Duration rotationInterval;
+    private final Duration reloadInterval;
+    private final Duration tokenLifetime;
+
+    private volatile Map<String, SecretKey> loadedKeys;
+    private volatile Keys keys;
+    private volatile long loadedModified;
+
+    public JwtKeyring(@Value("${security.jwt.keystore.path}") String path,
+                      @Value("${security.jwt.keystore.password:}") String password,
+                      @Value("${security.jwt.rotation.enabled:false}") boolean rotationEnabled,
+                      @Value("${security.jwt.rotation.interval:P7D}") Duration rotationInterval,
+                      @Value("${security.jwt.keystore.reload-interval:PT1M}") Duration reloadInterval,
+                      @Value("${security.jwt.expiration-time}") long jwtExpiration) throws IOException, GeneralSecurityException {
+        if (password == null || password.isBlank()) {
+            throw new IllegalStateException("security.jwt.keystore.password must be set");
+        }
+        this.path = Path.of(path);
+        this.password = password.toCharArray();
+        this.rotationEnabled = rotationEnabled;
+        this.rotationInterval = rotationInterval;
+        this.reloadInterval = reloadInterval;
+        this.tokenLifetime = Duration.ofMillis(jwtExpiration);
+        if (!Files.exists(this.path)) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(null, this.password);
+            addKey(keyStore);
+            if (create(keyStore)) {
+                log.info("Created JWT keystore " + this.path);
+            }
+        }
+        load();
+    }
+
+    /**
+     * Returns the keys currently in use.
+     *
+     * @return the signing key and the verification keys, as one consistent snapshot
+     */
+    public Keys current() {
+        return keys;
+    }
+
+    /**
+     * Reloads the keystore if another node changed it, switches to a new signing key once
+     * every node has had the time to load it and, on the rotating node, adds a new key when it is due.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.keystore.reload-interval:PT1M}")
+    public synchronized void refresh() {
+        try {
+            if (Files.getLastModifiedTime(path).toMillis() != loadedModified) {
+                load();
+            } else {
+                select();
+            }
+            if (rotationEnabled && isRotationDue(loadedKeys.keySet())) {
+                rotate();
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            log.error("Could not refresh JWT keystore " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Publishes a new key, which starts signing after one reload interval.
+     * The file is read again first, so a key another node has just added is kept and not replaced.
+     */
+    private void rotate() throws IOException, GeneralSecurityException {
+        KeyStore keyStore = read();
+        if (!isRotationDue(Collections.list(keyStore.aliases()))) {
+            load();
+            return;
+        }
+        String kid = addKey(keyStore);
+        // A key signs until the next key does, which is at most two reload intervals after the next key
+        // is added, and its last tokens expire one token lifetime later.
+        List<String> aliases = Collections.list(keyStore.aliases()).stream()
+                .filter(alias -> alias.startsWith(ALIAS_PREFIX))
+                .sorted(Comparator.comparing(JwtKeyring::createdAt))
+                .toList();
+        Instant expired = Instant.now().minus(reloadInterval.multipliedBy(2)).minus(tokenLifetime);
+        for (int i = 0; i + 1 < aliases.size(); i++) {
+            if (createdAt(aliases.get(i + 1)).isBefore(expired)) {
+                keyStore.deleteEntry(aliases.get(i));
+            }
+        }
+        store(keyStore);
+        load();
+        log.info("Published JWT signing key " + kid + ", which signs from " + createdAt(kid).plus(reloadInterval));
+    }
+
+    private boolean isRotationDue(Collection<String> aliases) {
+        Instant newest = aliases.stream()
+                .filter(alias -> alias.startsWith(ALIAS_PREFIX))
+                .map(JwtKeyring::createdAt)
+                .max(Comparator.naturalOrder())
+                .orElse(Instant.MIN);
+        return newest.plus(rotationInterval).isBefore(Instant.now());
+    }
+
+    private void load() throws IOException, GeneralSecurityException {
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        KeyStore keyStore = read();
+        Map<String, SecretKey> verification = new HashMap<>();
+        for (String alias : Collections.list(keyStore.aliases())) {
+            if (alias.startsWith(ALIAS_PREFIX)) {
+                verification.put(alias, (SecretKey) keyStore.getKey(alias, password));
+            }
+        }
+        if (verification.isEmpty()) {
+            throw new KeyStoreException("No JWT keys in " + path);
+        }
+        loadedKeys = Map.copyOf(verification);
+        loadedModified = modified;
+        log.info("Loaded " + verification.size() + " JWT keys");
+        select();
+    }
+
+    /**
+     * Picks the signing key: the newest key published at least one reload interval ago,
+     * or the newest key if none is that old, as when the keystore has just been created.
+     */
+    private void select() {
+        Map<String, SecretKey> verification = loadedKeys;
+        Instant published = Instant.now().minus(reloadInterval);
+        String newest = null;
+        String signing = null;
+        for (String alias : verification.keySet()) {
+            Instant created = createdAt(alias);
+            if (newest == null || created.isAfter(createdAt(newest))) {
+                newest = alias;
+            }
+            if (!created.isAfter(published) && (signing == null || created.isAfter(createdAt(signing)))) {
+                signing = alias;
+            }
+        }
+        if (signing == null) {
+            signing = newest;
+        }
+        Keys current = keys;
+        if (current == null || !current.getSigningKeyId().equals(signing) || current.getVerificationKeys() != verification) {
+            keys = new Keys(signing, verification.get(signing), createdAt(signing), verification);
+            if (current == null || !current.getSigningKeyId().equals(signing)) {
+                log.info("Signing JWTs with " + signing);
+            }
+        }
+    }
+
+    private KeyStore read() throws IOException, GeneralSecurityException {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(path)) {
+            keyStore.load(in, password);
+        }
+        return keyStore;
+    }
+
+    /**
+     * Writes the keystore to a temporary file and moves it into place,
+     * so that other nodes never read a partially written file.
+     */
+    private void store(KeyStore keyStore) throws IOException, GeneralSecurityException {
+        Path tmp = write(keyStore);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the keystore to a temporary file and links it into place only if no keystore exists yet.
+     * Creating a link fails atomically when the target exists, unlike a move, which replaces it, so of
+     * several nodes starting together on an empty directory one creates the keystore and the others
+     * load it instead of each overwriting it with a key of their own.
+     *
+     * @return true if the keystore was created, false if another node created it first
+     */
+    private boolean create(KeyStore keyStore) throws IOException, GeneralSecurityException {
+        Path tmp = write(keyStore);
+        try {
+            Files.createLink(path, tmp);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } finally {
+            Files.delete(tmp);
+        }
+    }
+
+    private Path write(KeyStore keyStore) throws IOException, GeneralSecurityException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            keyStore.store(out, password);
+        }
+        return tmp;
+    }
+
+    private String addKey(KeyStore keyStore) throws GeneralSecurityException {
+        String alias = ALIAS_PREFIX + Instant.now().getEpochSecond();
+        keyStore.setEntry(alias, new KeyStore.SecretKeyEntry(Jwts.SIG.HS256.key().build()),
+                new KeyStore.PasswordProtection(password));
+        return alias;
+    }
+
+    private static Instant createdAt(String alias) {
+        return Instant.ofEpochSecond(Long.parseLong(alias.substring(ALIAS_PREFIX.length())));
+    }
+
+    /**
+     * A consistent view of the keyring.
+     */
+    @Getter
+    public static final class Keys {
+        private final String signingKeyId;
+        private final SecretKey signingKey;
+        private final Instant signingKeyCreated;
+        private final Map<String, SecretKey> verificationKeys;
+
+        private Keys(String signingKeyId, SecretKey signingKey, Instant signingKeyCreated, Map<String, SecretKey> verificationKeys) {
+            this.signingKeyId = signingKeyId;
+            this.signingKey = signingKey;
+            this.signingKeyCreated = signingKeyCreated;
+            this.verificationKeys = verificationKeys;
+        }
+    }
+}
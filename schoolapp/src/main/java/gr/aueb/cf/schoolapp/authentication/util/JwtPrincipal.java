@@ -0,0 +1,54 @@
+package gr.aueb.cf.schoolapp.authentication.util;
+
+import gr.aueb.cf.schoolapp.model.Role;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Authenticated principal built from the signed claims of a token, without a database lookup.
+ */
+@Getter
+public class JwtPrincipal implements UserDetails {
+    private final Long userId;
+    private final String username;
+    private final Role role;
+    private final Long studentId;
+    private final Long teacherId;
+
+    public JwtPrincipal(VerifiedToken token) {
+        this.userId = token.getUserId();
+        this.username = token.getUsername();
+        this.role = token.getRole();
+        this.studentId = token.getStudentId();
+        this.teacherId = token.getTeacherId();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role.name()));
+    }
+
+    /**
+     * The password is never part of a token.
+     *
+     * @return null
+     */
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "JwtPrincipal{" +
+                "userId=" + userId +
+                ", username='" + username + '\'' +
+                ", role=" + role +
+                '}';
+    }
+}
@@ -1,29 +1,78 @@
 package gr.aueb.cf.schoolapp.authentication.util;
 
 import gr.aueb.cf.schoolapp.model.Role;
+import gr.aueb.cf.schoolapp.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
  * Utility class for working with JSON Web Tokens (JWTs).
  * Provides methods for generating, extracting information from,
- * and validating JWTs.
+ * and validating JWTs. Keys come from the shared {@link JwtKeyring}.
  */
 @Service
 public class JwtUtil {
+    public static final String ROLE = "role";
+    public static final String USER_ID = "uid";
+    public static final String STUDENT_ID = "sid";
+    public static final String TEACHER_ID = "tid";
 
-    private final SecretKey secretKey = getSigningKey();
+    private final JwtKeyring keyring;
+
+    /**
+     * Parsers are immutable and thread-safe, so one is built up front and shared.
+     * The verification key is looked up in the keyring by the {@code kid} header of each token.
+     */
+    private final JwtParser parser;
 
     @Value("${security.jwt.expiration-time}")
     private long jwtExpiration;
 
+    public JwtUtil(JwtKeyring keyring) {
+        this.keyring = keyring;
+        this.parser = Jwts.parser().keyLocator(new LocatorAdapter<Key>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                String kid = header.getKeyId();
+                if (kid == null) {
+                    throw new UnsupportedJwtException("Token has no signing key ID");
+                }
+                SecretKey key = keyring.current().getVerificationKeys().get(kid);
+                if (key == null) {
+                    throw new UnsupportedJwtException("Unknown signing key " + kid);
+                }
+                return key;
+            }
+        }).build();
+    }
+
+    /**
+     * Parses the given JWT token and verifies its signature and expiration.
+     *
+     * @param token the JWT token
+     * @return the verified claims of the token
+     * @throws JwtException if the token is malformed, expired or not signed with our key
+     * @throws IllegalArgumentException if the token is empty
+     */
+    public VerifiedToken verify(String token) {
+        return new VerifiedToken(extractAllClaims(token));
+    }
+
     /**
      * Extracts the username from the given JWT token.
      *
@@ -55,24 +104,37 @@ public class JwtUtil {
      */
     public Role extractRole(String token) {
         Claims claims = extractAllClaims(token);
-        String roleString = claims.get("role", String.class);
+        String roleString = claims.get(ROLE, String.class);
         return Role.valueOf(roleString); // Convert String to Role enum
     }
 
     /**
-     * Generates a JWT token for the given username and role.
+     * Generates a JWT token for the given user.
+     * Besides the username and role, the token carries the IDs of the user and of
+     * the linked student or teacher, so that requests can be authenticated from the
+     * token alone, and a random ID, so that the token can be revoked on its own.
      *
-     * @param username the username
-     * @param role the role
+     * @param user the user
      * @return the generated JWT token
      */
-    public String generateToken(String username, Role role) {
-        return Jwts.builder()
-                .subject(username)
-                .claim("role", role.name())
+    public String generateToken(User user) {
+        JwtBuilder builder = Jwts.builder()
+                .subject(user.getUsername())
+                .claim(USER_ID, user.getId())
+                .claim(ROLE, user.getRole().name());
+        if (user.getStudent() != null) {
+            builder.claim(STUDENT_ID, user.getStudent().getId());
+        }
+        if (user.getTeacher() != null) {
+            builder.claim(TEACHER_ID, user.getTeacher().getId());
+        }
+        JwtKeyring.Keys keys = keyring.current();
+        return builder
+                .header().keyId(keys.getSigningKeyId()).and()
+                .id(UUID.randomUUID().toString())
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(secretKey)
+                .signWith(keys.getSigningKey())
                 .compact();
     }
 
@@ -88,6 +150,17 @@ public class JwtUtil {
         return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
     }
 
+    /**
+     * Validates an already verified token against the provided user details.
+     *
+     * @param token the verified token
+     * @param userDetails the user details
+     * @return true if the token belongs to the user and has not expired, false otherwise
+     */
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return token.getUsername().equals(userDetails.getUsername()) && !token.isExpired();
+    }
+
     /**
      * Checks if the given JWT token is expired.
      *
@@ -115,20 +188,8 @@ public class JwtUtil {
      * @return the claims
      */
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(secretKey)
-                .build()
+        return parser
                 .parseSignedClaims(token)
                 .getPayload();
     }
-
-    /**
-     * Generates a signing key for HS256 algorithm.
-     *
-     * @return the secret key
-     */
-    private SecretKey getSigningKey() {
-        return Jwts.SIG.HS256.key().build();
-    }
 }
@@ -0,0 +1,74 @@
+package gr.aueb.cf.schoolapp.authentication.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Limits login attempts per client address and per username, so that a burst of guesses
+ * is turned away before it costs a database lookup and a password hash.
+ * The address limit slows one client trying many usernames and counts every attempt; the username
+ * limit slows many clients trying one account and counts only failed attempts, so logging in with
+ * the right password never uses it up. Anyone can still fail on purpose against a username and make
+ * its owner wait until the limit refills, which is the price of throttling guesses spread over many
+ * addresses; the wait is at most one username period, so keep that period short.
+ * Usernames are compared case-insensitively, as the database does.
+ * Rejections are counted in {@code login.throttled}, tagged by the limit that rejected them.
+ */
+@Component
+@Slf4j
+public class LoginThrottle {
+    private final RateLimiter byAddress;
+    private final RateLimiter byUsername;
+    private final Counter addressRejections;
+    private final Counter usernameRejections;
+
+    public LoginThrottle(@Value("${security.login-throttle.address.capacity:20}") int addressCapacity,
+                         @Value("${security.login-throttle.address.period:PT1M}") Duration addressPeriod,
+                         @Value("${security.login-throttle.username.capacity:5}") int usernameCapacity,
+                         @Value("${security.login-throttle.username.period:PT1M}") Duration usernamePeriod,
+                         @Value("${security.login-throttle.max-keys:100000}") long maxKeys,
+                         MeterRegistry meterRegistry) {
+        this.byAddress = new RateLimiter(addressCapacity, addressPeriod, maxKeys);
+        this.byUsername = new RateLimiter(usernameCapacity, usernamePeriod, maxKeys);
+        this.addressRejections = Counter.builder("login.throttled").tag("limit", "address").register(meterRegistry);
+        this.usernameRejections = Counter.builder("login.throttled").tag("limit", "username").register(meterRegistry);
+    }
+
+    /**
+     * Records a login attempt against the address limit and checks, without counting it, the username limit.
+     *
+     * @param address  the address of the client
+     * @param username the username being logged in to
+     * @return 0 if the attempt may go ahead, otherwise the seconds to wait before trying again
+     */
+    public long tryAcquire(String address, String username) {
+        long wait = byAddress.tryAcquire(address);
+        if (wait > 0) {
+            addressRejections.increment();
+            log.warn("Login attempt from " + address + " was throttled");
+            return Math.max(1, RateLimiter.toSeconds(wait));
+        }
+        wait = byUsername.available(username.toLowerCase(Locale.ROOT));
+        if (wait > 0) {
+            usernameRejections.increment();
+            log.warn("Login attempt for user " + username + " was throttled");
+            return Math.max(1, RateLimiter.toSeconds(wait));
+        }
+        return 0;
+    }
+
+    /**
+     * Records a failed login attempt against the username limit.
+     *
+     * @param username the username whose password was wrong, or that does not exist
+     */
+    public void recordFailure(String username) {
+        byUsername.tryAcquire(username.toLowerCase(Locale.ROOT));
+    }
+}
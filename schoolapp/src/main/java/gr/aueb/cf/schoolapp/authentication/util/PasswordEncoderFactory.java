@@ -0,0 +1,147 @@
+package gr.aueb.cf.schoolapp.authentication.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the password encoder from the configured algorithm and cost.
+ * Hashes are stored with an {@code {id}} prefix naming their algorithm, so hashes of every supported
+ * algorithm keep verifying after the configured one changes; hashes without a prefix are bcrypt.
+ * A hash made with another algorithm or a lower cost than the configured one reports that it needs an upgrade
+ * (except PBKDF2 hashes, whose iteration count is not compared).
+ * When a target time is set, the cost of the configured algorithm is calibrated at startup so that
+ * one hash takes about that long on the current hardware, instead of using the configured cost.
+ */
+@Component
+@Slf4j
+public class PasswordEncoderFactory {
+    private static final String BCRYPT = "bcrypt";
+    private static final String PBKDF2 = "pbkdf2";
+    private static final String ARGON2 = "argon2";
+
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH = 32;
+    private static final int BCRYPT_PROBE_STRENGTH = 8;
+    private static final int PBKDF2_PROBE_ITERATIONS = 10000;
+    private static final String PROBE_PASSWORD = "calibration-password";
+
+    private final String algorithm;
+    private final Duration targetTime;
+    private final int argon2Memory;
+    private final int argon2Parallelism;
+    private int bcryptStrength;
+    private int pbkdf2Iterations;
+    private int argon2Iterations;
+
+    public PasswordEncoderFactory(@Value("${security.password-hashing.algorithm:bcrypt}") String algorithm,
+                                  @Value("${security.password-hashing.target-time:PT0S}") Duration targetTime,
+                                  @Value("${security.password-hashing.bcrypt.strength:10}") int bcryptStrength,
+                                  @Value("${security.password-hashing.pbkdf2.iterations:310000}") int pbkdf2Iterations,
+                                  @Value("${security.password-hashing.argon2.memory:19456}") int argon2Memory,
+                                  @Value("${security.password-hashing.argon2.iterations:2}") int argon2Iterations,
+                                  @Value("${security.password-hashing.argon2.parallelism:1}") int argon2Parallelism) {
+        if (!Set.of(BCRYPT, PBKDF2, ARGON2).contains(algorithm)) {
+            throw new IllegalArgumentException("Unsupported password hashing algorithm " + algorithm);
+        }
+        this.algorithm = algorithm;
+        this.targetTime = targetTime;
+        this.bcryptStrength = bcryptStrength;
+        this.pbkdf2Iterations = pbkdf2Iterations;
+        this.argon2Memory = argon2Memory;
+        this.argon2Iterations = argon2Iterations;
+        this.argon2Parallelism = argon2Parallelism;
+    }
+
+    /**
+     * Creates the password encoder, calibrating the cost first if a target time is set.
+     *
+     * @return an encoder that hashes with the configured algorithm and verifies every supported one.
+     */
+    public PasswordEncoder create() {
+        if (!targetTime.isZero() && !targetTime.isNegative()) {
+            calibrate();
+        }
+        BCryptPasswordEncoder bcrypt = bcrypt(bcryptStrength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, Map.of(
+                BCRYPT, bcrypt,
+                PBKDF2, pbkdf2(pbkdf2Iterations),
+                ARGON2, argon2(argon2Iterations)));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        log.info("Hashing passwords with " + describe());
+        return encoder;
+    }
+
+    /**
+     * Picks the cost of the configured algorithm for which one hash takes about the target time.
+     * A cheap hash is timed and the cost is scaled from it: bcrypt time doubles with each step of strength,
+     * PBKDF2 and Argon2 time grows linearly with the number of iterations.
+     */
+    private void calibrate() {
+        long target = targetTime.toNanos();
+        switch (algorithm) {
+            case BCRYPT -> {
+                double ratio = (double) target / time(bcrypt(BCRYPT_PROBE_STRENGTH));
+                int steps = (int) Math.round(Math.log(ratio) / Math.log(2));
+                bcryptStrength = Math.max(4, Math.min(31, BCRYPT_PROBE_STRENGTH + steps));
+            }
+            case PBKDF2 -> {
+                double ratio = (double) target / time(pbkdf2(PBKDF2_PROBE_ITERATIONS));
+                pbkdf2Iterations = (int) Math.max(PBKDF2_PROBE_ITERATIONS, Math.min(Integer.MAX_VALUE, PBKDF2_PROBE_ITERATIONS * ratio));
+            }
+            case ARGON2 -> {
+                double ratio = (double) target / time(argon2(1));
+                argon2Iterations = (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(ratio)));
+            }
+            default -> throw new IllegalStateException(algorithm);
+        }
+        log.info("Calibrated password hashing for " + targetTime.toMillis() + " ms per hash");
+    }
+
+    /**
+     * Times one hash, after a first one that warms up the code.
+     *
+     * @return the shortest of three timed hashes, in nanoseconds.
+     */
+    private static long time(PasswordEncoder encoder) {
+        encoder.encode(PROBE_PASSWORD);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            encoder.encode(PROBE_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return Math.max(1, best);
+    }
+
+    private String describe() {
+        return switch (algorithm) {
+            case BCRYPT -> "bcrypt, strength " + bcryptStrength;
+            case PBKDF2 -> "PBKDF2-HMAC-SHA256, " + pbkdf2Iterations + " iterations";
+            case ARGON2 -> "Argon2id, " + argon2Memory + " KiB, " + argon2Iterations + " iterations, parallelism " + argon2Parallelism;
+            default -> algorithm;
+        };
+    }
+
+    private static BCryptPasswordEncoder bcrypt(int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    private static Pbkdf2PasswordEncoder pbkdf2(int iterations) {
+        return new Pbkdf2PasswordEncoder("", SALT_LENGTH, iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+
+    private Argon2PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(SALT_LENGTH, HASH_LENGTH, argon2Parallelism, argon2Memory, iterations);
+    }
+}
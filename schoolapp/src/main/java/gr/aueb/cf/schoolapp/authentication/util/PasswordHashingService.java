@@ -0,0 +1,161 @@
+package gr.aueb.cf.schoolapp.authentication.util;
+
+import gr.aueb.cf.schoolapp.service.exceptions.HashingOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Password encoder that runs every hash and verification on its own bounded pool of threads.
+ * Hashing is deliberately slow; running it on the request threads lets a burst of logins or
+ * registrations take every request thread and starve cheap requests. Here at most one hash per
+ * worker runs at a time, at most {@code queueCapacity} wait, and any further request is rejected
+ * at once with a {@link HashingOverloadedException}, which is answered with 503 and Retry-After.
+ * Publishes the {@code password.hashing.queue} and {@code password.hashing.active} gauges, the
+ * {@code password.hashing.wait} and {@code password.hashing.duration} timers and the
+ * {@code password.hashing.rejected} counter.
+ */
+@Slf4j
+public class PasswordHashingService implements PasswordEncoder, DisposableBean {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final long retryAfterSeconds;
+    private final Timer waitTimer;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public PasswordHashingService(PasswordEncoder delegate, int threads, int queueCapacity, Duration retryAfter, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.queueCapacity = queueCapacity;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("password.hashing.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        this.waitTimer = Timer.builder("password.hashing.wait").register(meterRegistry);
+        this.encodeTimer = Timer.builder("password.hashing.duration").tag("operation", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hashing.duration").tag("operation", "matches").register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected").register(meterRegistry);
+        log.info("Password hashing runs on " + threads + " threads with a queue of " + queueCapacity);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * Encodes a batch of passwords in parallel, for bulk imports.
+     * At most one hash per worker plus half the queue of the batch are in flight at once, so a
+     * bulk import never fills the queue and logins and registrations keep being served. If the
+     * queue is full anyway, the batch waits for its own oldest hash before submitting the next.
+     *
+     * @param rawPasswords the passwords to encode.
+     * @return the encoded passwords, in the order of {@code rawPasswords}.
+     * @throws HashingOverloadedException if the queue is full and no hash of the batch is in flight.
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        int maxInFlight = executor.getMaximumPoolSize() + Math.max(1, queueCapacity / 2);
+        List<Future<String>> futures = new ArrayList<>(rawPasswords.size());
+        List<String> encoded = new ArrayList<>(rawPasswords.size());
+        try {
+            for (CharSequence rawPassword : rawPasswords) {
+                if (futures.size() - encoded.size() >= maxInFlight) {
+                    encoded.add(await(futures.get(encoded.size())));
+                }
+                Future<String> future;
+                while ((future = submit(encodeTimer, () -> delegate.encode(rawPassword))) == null) {
+                    if (futures.size() == encoded.size()) {
+                        throw overloaded();
+                    }
+                    encoded.add(await(futures.get(encoded.size())));
+                }
+                futures.add(future);
+            }
+            while (encoded.size() < futures.size()) {
+                encoded.add(await(futures.get(encoded.size())));
+            }
+        } catch (RuntimeException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        return encoded;
+    }
+
+    private <T> T run(Timer timer, Supplier<T> task) {
+        Future<T> future = submit(timer, task);
+        if (future == null) {
+            throw overloaded();
+        }
+        return await(future);
+    }
+
+    /**
+     * Queues a task, returning null if the queue is full.
+     */
+    private <T> Future<T> submit(Timer timer, Supplier<T> task) {
+        long queued = System.nanoTime();
+        try {
+            return executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queued, TimeUnit.NANOSECONDS);
+                return timer.record(task);
+            });
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    private HashingOverloadedException overloaded() {
+        rejected.increment();
+        log.warn("Password hashing queue is full, request rejected");
+        return new HashingOverloadedException(retryAfterSeconds);
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
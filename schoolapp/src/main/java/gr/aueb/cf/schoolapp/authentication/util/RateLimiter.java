@@ -0,0 +1,138 @@
+package gr.aueb.cf.schoolapp.authentication.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory token buckets, one per key.
+ * Each bucket holds up to {@code capacity} tokens and refills at {@code capacity} tokens per {@code period}.
+ * A bucket is kept as a single {@link AtomicLong} holding the time at which it will be full again
+ * and is updated with compare-and-set, so requests never lock and {@link #tryAcquire} allocates nothing
+ * once the bucket of its key exists.
+ * A bucket idle for a whole period is full, so it is evicted after that long without losing anything;
+ * the number of buckets is also bounded, so a flood of distinct keys cannot exhaust memory.
+ */
+public class RateLimiter {
+    @Getter
+    private final int capacity;
+    @Getter
+    private final Duration period;
+    private final long emissionInterval;
+    private final long burstWindow;
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(int capacity, Duration period, long maxKeys) {
+        if (capacity < 1 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Rate limit needs a positive capacity and period");
+        }
+        this.capacity = capacity;
+        this.period = period;
+        this.emissionInterval = Math.max(1, period.toNanos() / capacity);
+        this.burstWindow = emissionInterval * capacity;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(period)
+                .build();
+    }
+
+    /**
+     * Takes a token from the bucket of a key.
+     *
+     * @param key the key whose bucket to use
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    public long tryAcquire(String key) {
+        long taken = take(key);
+        return (taken > 0) ? 0 : -taken;
+    }
+
+    /**
+     * Takes a token from the bucket of a key and reports the state of the bucket.
+     *
+     * @param key the key whose bucket to use
+     * @return whether a token was taken, how many are left and when the bucket is full again
+     */
+    public Decision acquire(String key) {
+        long taken = take(key);
+        if (taken > 0) {
+            int remaining = (int) ((burstWindow - taken) / emissionInterval);
+            return new Decision(true, capacity, remaining, toSeconds(taken), 0);
+        }
+        return new Decision(false, capacity, 0, toSeconds(burstWindow - taken - emissionInterval), toSeconds(-taken));
+    }
+
+    /**
+     * @return if a token was taken, the nanoseconds until the bucket is full again;
+     *         otherwise the negated nanoseconds until a token is available
+     */
+    private long take(String key) {
+        long now = System.nanoTime();
+        AtomicLong fullAt = bucket(key, now);
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current - now, 0) + emissionInterval;
+            if (next > burstWindow) {
+                return burstWindow - next;
+            }
+            if (fullAt.compareAndSet(current, now + next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Tells how long until the bucket of a key has a token, without taking it.
+     *
+     * @param key the key whose bucket to check
+     * @return 0 if a token is available, otherwise the nanoseconds until one is
+     */
+    public long available(String key) {
+        AtomicLong fullAt = buckets.getIfPresent(key);
+        if (fullAt == null) {
+            return 0;
+        }
+        long next = Math.max(fullAt.get() - System.nanoTime(), 0) + emissionInterval;
+        return (next > burstWindow) ? next - burstWindow : 0;
+    }
+
+    /**
+     * Looks the bucket up first, so that a key seen before costs no allocation;
+     * a new bucket starts full.
+     */
+    private AtomicLong bucket(String key, long now) {
+        AtomicLong fullAt = buckets.getIfPresent(key);
+        return (fullAt != null) ? fullAt : buckets.get(key, k -> new AtomicLong(now));
+    }
+
+    /**
+     * Rounds nanoseconds up to whole seconds, as the rate limit headers carry seconds.
+     */
+    public static long toSeconds(long nanos) {
+        return TimeUnit.NANOSECONDS.toSeconds(nanos + TimeUnit.SECONDS.toNanos(1) - 1);
+    }
+
+    /**
+     * The outcome of taking a token.
+     */
+    @Getter
+    public static final class Decision {
+        private final boolean allowed;
+        private final int limit;
+        private final int remaining;
+        private final long resetSeconds;
+        private final long retryAfterSeconds;
+
+        private Decision(boolean allowed, int limit, int remaining, long resetSeconds, long retryAfterSeconds) {
+            this.allowed = allowed;
+            this.limit = limit;
+            this.remaining = remaining;
+            this.resetSeconds = resetSeconds;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+}
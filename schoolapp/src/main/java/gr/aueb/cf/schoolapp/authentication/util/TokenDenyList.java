@@ -0,0 +1,119 @@
+package gr.aueb.cf.schoolapp.authentication.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory list of tokens that are no longer accepted, checked on every request without touching the database.
+ * When a user changes or all their tokens are revoked, every token issued to them up to that second is rejected,
+ * so stale claims (role, linked student/teacher) cannot outlive the change.
+ * A single token, such as one whose user logged out, is rejected by its ID.
+ * An entry is dropped once all tokens it could reject have expired anyway, through a queue ordered by expiration,
+ * which keeps the list as small as the number of revocations within one token lifetime and costs each
+ * revocation a logarithmic insertion, however many revocations come at once.
+ */
+@Component
+@Slf4j
+public class TokenDenyList {
+    private final Map<Long, Long> revokedAt = new ConcurrentHashMap<>();
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+
+    @Value("${security.jwt.expiration-time}")
+    private long jwtExpiration;
+
+    /**
+     * Rejects the tokens issued to a user up to now.
+     *
+     * @param userId the ID of the user
+     */
+    public void revoke(Long userId) {
+        revoke(userId, Instant.now());
+        log.info("Tokens of user with id " + userId + " were revoked");
+    }
+
+    /**
+     * Rejects the tokens issued to a user up to a given time.
+     *
+     * @param userId the ID of the user
+     * @param at     the time of the revocation
+     */
+    public void revoke(Long userId, Instant at) {
+        Long second = at.getEpochSecond();
+        if (revokedAt.merge(userId, second, Math::max).equals(second)) {
+            // A token issued within the second expires at most one second after one issued at its start.
+            long expiresAt = (second + 1) * 1000 + jwtExpiration;
+            expiries.add(new Expiry(() -> revokedAt.remove(userId, second), expiresAt));
+        }
+        evictExpired();
+    }
+
+    /**
+     * Rejects a single token until it expires.
+     *
+     * @param tokenId   the ID of the token
+     * @param expiresAt the expiration of the token
+     */
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        if (revokedTokens.putIfAbsent(tokenId, expiresAt.toEpochMilli()) == null) {
+            expiries.add(new Expiry(() -> revokedTokens.remove(tokenId), expiresAt.toEpochMilli()));
+        }
+        evictExpired();
+    }
+
+    /**
+     * Checks whether a token was revoked by its ID, or was issued before its user was last revoked.
+     * Issue times have a resolution of one second, so a token issued within the
+     * second of the revocation is rejected as well.
+     *
+     * @param token the verified token
+     * @return true if the token must not be accepted
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        if (token.getTokenId() != null && revokedTokens.containsKey(token.getTokenId())) return true;
+        if (token.getUserId() == null) return false;
+        Long second = revokedAt.get(token.getUserId());
+        return second != null && (token.getIssuedAt() == null || token.getIssuedAt().getTime() / 1000 <= second);
+    }
+
+    /**
+     * Drops the entries whose tokens have expired. A user entry that a later revocation
+     * has since replaced is left to the expiry of that revocation.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.deny-list.eviction-interval:PT1M}")
+    public void evictExpired() {
+        Expiry expiry;
+        while ((expiry = expiries.poll()) != null) {
+            expiry.eviction.run();
+        }
+    }
+
+    private static final class Expiry implements Delayed {
+        private final Runnable eviction;
+        private final long expiresAt;
+
+        private Expiry(Runnable eviction, long expiresAt) {
+            this.eviction = eviction;
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAt, ((Expiry) other).expiresAt);
+        }
+    }
+}
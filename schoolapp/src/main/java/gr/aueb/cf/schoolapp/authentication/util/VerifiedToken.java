@@ -0,0 +1,49 @@
+package gr.aueb.cf.schoolapp.authentication.util;
+
+import gr.aueb.cf.schoolapp.model.Role;
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * The claims of a JWT whose signature and expiration have been checked.
+ * A token is parsed once per request; the filter stores the result as a request
+ * attribute so that later code reads the claims instead of parsing the token again.
+ */
+@Getter
+public final class VerifiedToken {
+    public static final String REQUEST_ATTRIBUTE = VerifiedToken.class.getName();
+
+    private final String tokenId;
+    private final String username;
+    private final Long userId;
+    private final Role role;
+    private final Long studentId;
+    private final Long teacherId;
+    private final Date issuedAt;
+    private final Date expiration;
+    private final Claims claims;
+
+    VerifiedToken(Claims claims) {
+        this.tokenId = claims.getId();
+        this.username = claims.getSubject();
+        this.userId = claims.get(JwtUtil.USER_ID, Long.class);
+        String role = claims.get(JwtUtil.ROLE, String.class);
+        this.role = (role == null) ? null : Role.valueOf(role);
+        this.studentId = claims.get(JwtUtil.STUDENT_ID, Long.class);
+        this.teacherId = claims.get(JwtUtil.TEACHER_ID, Long.class);
+        this.issuedAt = claims.getIssuedAt();
+        this.expiration = claims.getExpiration();
+        this.claims = claims;
+    }
+
+    /**
+     * Checks whether the token has expired.
+     *
+     * @return true if the expiration time has passed.
+     */
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
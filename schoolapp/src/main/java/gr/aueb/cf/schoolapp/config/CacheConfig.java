@@ -0,0 +1,46 @@
+package gr.aueb.cf.schoolapp.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the caches of reference data that rarely changes: cities, specialities and courses.
+ * Each cache is bounded in size and its entries expire a fixed time after they were loaded.
+ * The services evict a cache on every change to its data; evictions are deferred until the change
+ * is committed, so a concurrent read cannot put the old data back in between.
+ * Hits and misses are published as the {@code cache.*} metrics, and admins can inspect and clear
+ * the caches through the {@code /actuator/caches} endpoint.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String CITIES = "cities";
+    public static final String SPECIALITIES = "specialities";
+    public static final String COURSES = "courses";
+
+    /**
+     * Defines the cache manager bean.
+     *
+     * @param maxSize the maximum number of entries of each cache
+     * @param ttl     the time after which an entry is loaded again
+     * @return the cache manager
+     */
+    @Bean
+    public CacheManager cacheManager(@Value("${cache.reference-data.max-size:1000}") long maxSize,
+                                     @Value("${cache.reference-data.ttl:PT1H}") Duration ttl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(CITIES, SPECIALITIES, COURSES);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,107 @@
+package gr.aueb.cf.schoolapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import gr.aueb.cf.schoolapp.model.AbstractEntity;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration of the primary database and of an optional read replica.
+ * Read-only transactions run on the replica when {@code datasource.replica.url} is set, and on the
+ * primary otherwise; Hibernate runs them without dirty checking or flushing. Everything else runs
+ * on the primary. Each database has its own connection pool, configured under
+ * {@code spring.datasource.hikari} and {@code datasource.replica.hikari}, whose use is published as
+ * the {@code hikaricp.*} metrics tagged with the pool name.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(autowireCandidate = false)
+    @ConditionalOnProperty("datasource.replica.url")
+    @ConfigurationProperties("datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    /**
+     * Defines the pool of the replica.
+     *
+     * @param generateDdl whether to create the schema on the replica, for embedded databases that
+     *                    start empty; a real replica receives it from the primary
+     * @param jpaProperties the JPA properties, for the dialect of the schema
+     * @return the data source of the replica
+     */
+    @Bean
+    @ConditionalOnProperty("datasource.replica.url")
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${datasource.replica.generate-ddl:false}") boolean generateDdl,
+                                              JpaProperties jpaProperties) {
+        HikariDataSource dataSource = replicaDataSourceProperties().initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        if (generateDdl) {
+            createSchema(dataSource, jpaProperties);
+        }
+        return dataSource;
+    }
+
+    /**
+     * Defines the data source used by JPA and JDBC, which routes each transaction to its database.
+     * Hibernate must release the connection at the end of each transaction, so that a session kept
+     * open for the whole request takes a connection from the right database for each transaction.
+     *
+     * @param primary the pool of the primary
+     * @param replica the pool of the replica, if one is configured
+     * @return the routing data source
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") ObjectProvider<DataSource> replica) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica.getIfAvailable(() -> primary)));
+    }
+
+    /**
+     * Creates the tables of the entities on the given database with a short-lived entity manager factory.
+     */
+    private static void createSchema(DataSource dataSource, JpaProperties jpaProperties) {
+        Map<String, Object> properties = new HashMap<>(jpaProperties.getProperties());
+        properties.put(AvailableSettings.HBM2DDL_AUTO, "create");
+        properties.put(AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName());
+        properties.put(AvailableSettings.IMPLICIT_NAMING_STRATEGY, SpringImplicitNamingStrategy.class.getName());
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan(AbstractEntity.class.getPackageName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(properties);
+        factory.setPersistenceUnitName("replica-schema");
+        factory.afterPropertiesSet();
+        factory.destroy();
+    }
+}
@@ -0,0 +1,48 @@
+package gr.aueb.cf.schoolapp.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends the connections of read-only transactions to the replica and all others to the primary.
+ * The route is chosen when a connection is first used, so this data source is wrapped in a
+ * lazy connection proxy that defers the choice until the transaction has started.
+ * Once a request has run a read-write transaction, its later read-only transactions also go to the
+ * primary, so that a response never misses the changes the same request made because the replica lags.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    private static final String WROTE = ReadWriteRoutingDataSource.class.getName() + ".WROTE";
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Route.PRIMARY;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (attributes != null) {
+                attributes.setAttribute(WROTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            }
+            return Route.PRIMARY;
+        }
+        if (attributes != null && attributes.getAttribute(WROTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+}
@@ -1,25 +1,25 @@
 package gr.aueb.cf.schoolapp.dto;
 
-import gr.aueb.cf.schoolapp.model.Student;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.util.Set;
+import java.util.List;
 
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class CityReadOnlyDTO extends BaseDTO{
     private String city;
-    private Set<Student> students;
+    private List<StudentReadOnlyDTO> students;
 
-    public CityReadOnlyDTO(@NotNull Long id, String city, Set<Student> students) {
+    public CityReadOnlyDTO(@NotNull Long id, String city) {
         this.setId(id);
         this.city = city;
-        this.students = students;
     }
 }
@@ -1,28 +1,28 @@
 package gr.aueb.cf.schoolapp.dto;
 
-import gr.aueb.cf.schoolapp.model.Student;
-import gr.aueb.cf.schoolapp.model.Teacher;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.util.Set;
+import java.util.List;
 
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class CourseReadOnlyDTO extends BaseDTO{
     private String courseName;
-    private Teacher teacher;
-    private Set<Student> students;
+    private Long teacherId;
+    private TeacherReadOnlyDTO teacher;
+    private List<StudentReadOnlyDTO> students;
 
-    public CourseReadOnlyDTO(@NotNull Long id, String courseName, Teacher teacher, Set<Student> students){
+    public CourseReadOnlyDTO(@NotNull Long id, String courseName, Long teacherId){
         this.setId(id);
         this.courseName = courseName;
-        this.teacher = teacher;
-        this.students = students;
+        this.teacherId = teacherId;
     }
 }
@@ -0,0 +1,20 @@
+package gr.aueb.cf.schoolapp.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class EnrollmentInsertDTO {
+    @NotNull(message = "Error ids should not be null")
+    @Size(min = 1, max = 10000, message = "Error in ids size")
+    private List<Long> ids;
+}
@@ -0,0 +1,18 @@
+package gr.aueb.cf.schoolapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class EnrollmentReadOnlyDTO {
+    private Long studentId;
+    private Long courseId;
+    private LocalDateTime enrolledAt;
+}
@@ -0,0 +1,21 @@
+package gr.aueb.cf.schoolapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class EnrollmentResultDTO {
+    private Long id;
+    private Status status;
+
+    public enum Status {
+        ENROLLED,
+        ALREADY_ENROLLED,
+        NOT_FOUND
+    }
+}
@@ -0,0 +1,15 @@
+package gr.aueb.cf.schoolapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ImportErrorDTO {
+    private long row;
+    private String message;
+}
@@ -0,0 +1,28 @@
+package gr.aueb.cf.schoolapp.dto;
+
+import gr.aueb.cf.schoolapp.model.ImportStatus;
+import gr.aueb.cf.schoolapp.model.ImportType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ImportJobReadOnlyDTO {
+    private Long id;
+    private ImportType type;
+    private ImportStatus status;
+    private long processedRows;
+    private long importedRows;
+    private long failedRows;
+    private String message;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private List<ImportErrorDTO> errors;
+}
@@ -0,0 +1,18 @@
+package gr.aueb.cf.schoolapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class RefreshTokenDTO {
+    @NotNull(message = "Error refresh token should not be null")
+    @JsonProperty("refresh_token")
+    private String refreshToken;
+}
@@ -1,37 +1,37 @@
 package gr.aueb.cf.schoolapp.dto;
 
-import gr.aueb.cf.schoolapp.model.Course;
-import gr.aueb.cf.schoolapp.model.Speciality;
-import gr.aueb.cf.schoolapp.model.User;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.util.Set;
+import java.util.List;
 
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class TeacherReadOnlyDTO extends BaseDTO {
     private String firstname;
     private String lastname;
     private  String ssn;
     private String email;
-    private Speciality speciality;
-    private User user;
-    private Set<Course> courses;
+    private Long specialityId;
+    private Long userId;
+    private SpecialityReadOnlyDTO speciality;
+    private UserReadOnlyDTO user;
+    private List<CourseReadOnlyDTO> courses;
 
-    public TeacherReadOnlyDTO(@NotNull Long id, String firstname, String lastname, String ssn, String email, Speciality speciality, User user, Set<Course> courses) {
+    public TeacherReadOnlyDTO(@NotNull Long id, String firstname, String lastname, String ssn, String email, Long specialityId, Long userId) {
         this.setId(id);
         this.firstname = firstname;
         this.lastname = lastname;
         this.ssn = ssn;
         this.email = email;
-        this.speciality = speciality;
-        this.user = user;
-        this.courses = courses;
+        this.specialityId = specialityId;
+        this.userId = userId;
     }
 }
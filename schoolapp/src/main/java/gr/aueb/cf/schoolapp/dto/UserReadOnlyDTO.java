@@ -1,8 +1,7 @@
 package gr.aueb.cf.schoolapp.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import gr.aueb.cf.schoolapp.model.Role;
-import gr.aueb.cf.schoolapp.model.Student;
-import gr.aueb.cf.schoolapp.model.Teacher;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -13,19 +12,20 @@ import lombok.Setter;
 @AllArgsConstructor
 @Getter
 @Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class UserReadOnlyDTO extends BaseDTO {
     private String username;
-    private String password;
     private Role role;
-    private Teacher teacher;
-    private Student student;
+    private Long teacherId;
+    private Long studentId;
+    private TeacherReadOnlyDTO teacher;
+    private StudentReadOnlyDTO student;
 
-    public UserReadOnlyDTO(@NotNull Long id, String username, String password, Role role, Teacher teacher, Student student) {
+    public UserReadOnlyDTO(@NotNull Long id, String username, Role role, Long teacherId, Long studentId) {
         this.setId(id);
         this.username = username;
-        this.password = password;
         this.role = role;
-        this.teacher = teacher;
-        this.student = student;
+        this.teacherId = teacherId;
+        this.studentId = studentId;
     }
 }
@@ -2,12 +2,20 @@ package gr.aueb.cf.schoolapp.mapper;
 
 import gr.aueb.cf.schoolapp.dto.*;
 import gr.aueb.cf.schoolapp.model.*;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.BeanWrapperImpl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * Mapper class providing static methods to map between DTOs and entity models.
  * This utility class handles the conversion of data transfer objects to model entities and vice versa.
+ * Read-only DTOs carry the IDs of associated entities; the associations named in an
+ * {@code expand} set are added as nested read-only DTOs, one level deep.
  */
 public class Mapper {
     private Mapper(){}
@@ -21,19 +29,51 @@ public class Mapper {
     }
 
     public static TeacherReadOnlyDTO mapTeacherToReadOnly(Teacher teacher) {
-        return new TeacherReadOnlyDTO(teacher.getId(), teacher.getFirstname(), teacher.getLastname(), teacher.getSsn(), teacher.getEmail(), teacher.getSpeciality(),teacher.getUser(),teacher.getAllCourses());
+        return new TeacherReadOnlyDTO(teacher.getId(), teacher.getFirstname(), teacher.getLastname(), teacher.getSsn(), teacher.getEmail(),
+                teacher.getSpeciality() == null ? null : teacher.getSpeciality().getId(),
+                teacher.getUser() == null ? null : teacher.getUser().getId());
+    }
+
+    public static TeacherReadOnlyDTO mapTeacherToReadOnly(Teacher teacher, Set<String> expand) {
+        TeacherReadOnlyDTO dto = mapTeacherToReadOnly(teacher);
+        if (expands(expand, "speciality") && teacher.getSpeciality() != null) {
+            dto.setSpeciality(mapSpecialityToReadOnly(teacher.getSpeciality()));
+        }
+        if (expands(expand, "user") && teacher.getUser() != null) {
+            dto.setUser(mapUserToReadOnly(teacher.getUser()));
+        }
+        if (expands(expand, "courses")) {
+            dto.setCourses(teacher.getAllCourses().stream().map(Mapper::mapToReadOnlyDTO).toList());
+        }
+        return dto;
     }
 
     public static Student mapToStudent(StudentInsertDTO dto) {
-        return new Student(null, dto.getFirstname(), dto.getLastname(), dto.getGender(), dto.getEmail(), dto.getCity(), dto.getUser(), dto.getCourses());
+        return new Student(null, dto.getFirstname(), dto.getLastname(), dto.getGender(), dto.getEmail(), dto.getCity(), dto.getUser(), new HashSet<>());
     }
 
     public static Student mapToStudent(StudentUpdateDTO dto) {
-        return new Student(dto.getId(), dto.getFirstname(), dto.getLastname(), dto.getGender(), dto.getEmail(), dto.getCity(), dto.getUser(), dto.getCourses());
+        return new Student(dto.getId(), dto.getFirstname(), dto.getLastname(), dto.getGender(), dto.getEmail(), dto.getCity(), dto.getUser(), new HashSet<>());
     }
 
     public static StudentReadOnlyDTO mapStudentToReadOnly(Student student) {
-        return new StudentReadOnlyDTO(student.getId(), student.getFirstname(), student.getLastname(), student.getGender(), student.getEmail(), student.getCity(), student.getUser(), student.getAllCourses());
+        return new StudentReadOnlyDTO(student.getId(), student.getFirstname(), student.getLastname(), student.getGender(), student.getEmail(),
+                student.getCity() == null ? null : student.getCity().getId(),
+                student.getUser() == null ? null : student.getUser().getId());
+    }
+
+    public static StudentReadOnlyDTO mapStudentToReadOnly(Student student, Set<String> expand) {
+        StudentReadOnlyDTO dto = mapStudentToReadOnly(student);
+        if (expands(expand, "city") && student.getCity() != null) {
+            dto.setCity(mapCityToReadOnly(student.getCity()));
+        }
+        if (expands(expand, "user") && student.getUser() != null) {
+            dto.setUser(mapUserToReadOnly(student.getUser()));
+        }
+        if (expands(expand, "courses")) {
+            dto.setCourses(student.getAllCourses().stream().map(Mapper::mapToReadOnlyDTO).toList());
+        }
+        return dto;
     }
 
     public static User mapToUser(UserInsertDTO dto) {
@@ -45,7 +85,20 @@ public class Mapper {
     }
 
     public static UserReadOnlyDTO mapUserToReadOnly(User user) {
-        return new UserReadOnlyDTO(user.getId(), user.getUsername(), user.getPassword(), user.getRole(), user.getTeacher(), user.getStudent());
+        return new UserReadOnlyDTO(user.getId(), user.getUsername(), user.getRole(),
+                user.getTeacher() == null ? null : user.getTeacher().getId(),
+                user.getStudent() == null ? null : user.getStudent().getId());
+    }
+
+    public static UserReadOnlyDTO mapUserToReadOnly(User user, Set<String> expand) {
+        UserReadOnlyDTO dto = mapUserToReadOnly(user);
+        if (expands(expand, "teacher") && user.getTeacher() != null) {
+            dto.setTeacher(mapTeacherToReadOnly(user.getTeacher()));
+        }
+        if (expands(expand, "student") && user.getStudent() != null) {
+            dto.setStudent(mapStudentToReadOnly(user.getStudent()));
+        }
+        return dto;
     }
 
     public static Speciality mapToSpeciality(SpecialityInsertDTO dto) {
@@ -69,19 +122,43 @@ public class Mapper {
     }
 
     public static CityReadOnlyDTO mapCityToReadOnly(City city) {
-        return new CityReadOnlyDTO(city.getId(), city.getCity(), city.getAllStudents());
+        return new CityReadOnlyDTO(city.getId(), city.getCity());
+    }
+
+    public static CityReadOnlyDTO mapCityToReadOnly(City city, Set<String> expand) {
+        CityReadOnlyDTO dto = mapCityToReadOnly(city);
+        if (expands(expand, "students")) {
+            dto.setStudents(city.getAllStudents().stream().map(Mapper::mapStudentToReadOnly).toList());
+        }
+        return dto;
     }
 
     public static Course mapToCourse(CourseInsertDTO dto) {
-        return new Course(null, dto.getCourseName(), dto.getTeacher(), dto.getStudents());
+        return new Course(null, dto.getCourseName(), dto.getTeacher(), new HashSet<>());
     }
 
     public static Course mapToCourse(CourseUpdateDTO dto) {
-        return new Course(dto.getId(), dto.getCourseName(), dto.getTeacher(), dto.getStudents());
+        return new Course(dto.getId(), dto.getCourseName(), dto.getTeacher(), new HashSet<>());
     }
 
     public static CourseReadOnlyDTO mapToReadOnlyDTO(Course course) {
-        return new CourseReadOnlyDTO(course.getId(), course.getCourseName(), course.getTeacher(), course.getAllStudents());
+        return new CourseReadOnlyDTO(course.getId(), course.getCourseName(),
+                course.getTeacher() == null ? null : course.getTeacher().getId());
+    }
+
+    public static CourseReadOnlyDTO mapToReadOnlyDTO(Course course, Set<String> expand) {
+        CourseReadOnlyDTO dto = mapToReadOnlyDTO(course);
+        if (expands(expand, "teacher") && course.getTeacher() != null) {
+            dto.setTeacher(mapTeacherToReadOnly(course.getTeacher()));
+        }
+        if (expands(expand, "students")) {
+            dto.setStudents(course.getAllStudents().stream().map(Mapper::mapStudentToReadOnly).toList());
+        }
+        return dto;
+    }
+
+    public static EnrollmentReadOnlyDTO mapEnrollmentToReadOnly(Enrollment enrollment) {
+        return new EnrollmentReadOnlyDTO(enrollment.getId().getStudentId(), enrollment.getId().getCourseId(), enrollment.getCreatedAt());
     }
 
     public static User mapToUser(UserLoginDTO dto) {
@@ -101,10 +178,10 @@ public class Mapper {
         return teacher;
     }
 
-    public static User extractUserFromRegisterTeacherDto(RegisterTeacherDTO dto) {
+    public static User extractUserFromRegisterTeacherDto(RegisterTeacherDTO dto, String encodedPassword) {
         User user = new User();
         user.setUsername(dto.getUsername());
-        user.setPassword(encodePassword(dto.getPassword()));
+        user.setPassword(encodedPassword);
         user.setRole(Role.TEACHER);
         user.setIsActive(true);
         return user;
@@ -119,17 +196,44 @@ public class Mapper {
         return student;
     }
 
-    public static User extractUserFromRegisterStudentDto(RegisterStudentDTO dto) {
+    public static User extractUserFromRegisterStudentDto(RegisterStudentDTO dto, String encodedPassword) {
         User user = new User();
         user.setUsername(dto.getUsername());
-        user.setPassword(encodePassword(dto.getPassword()));
+        user.setPassword(encodedPassword);
         user.setRole(Role.STUDENT);
         user.setIsActive(true);
         return user;
     }
 
-    private static String encodePassword(String password) {
-        PasswordEncoder encoder = new BCryptPasswordEncoder();
-        return encoder.encode(password);
+    public static ImportJobReadOnlyDTO mapImportJobToReadOnly(ImportJob job, List<ImportError> errors) {
+        return new ImportJobReadOnlyDTO(job.getId(), job.getType(), job.getStatus(), job.getProcessedRows(),
+                job.getImportedRows(), job.getFailedRows(), job.getMessage(), job.getCreatedAt(), job.getUpdatedAt(),
+                errors.stream().map(error -> new ImportErrorDTO(error.getRowNumber(), error.getMessage())).toList());
+    }
+
+    /**
+     * Maps a projection row to a read-only DTO. Only the selected fields are set;
+     * the rest stay null and are left out of the response.
+     *
+     * @param row     the selected fields, by name.
+     * @param factory creates an empty DTO.
+     * @return the populated DTO.
+     */
+    public static <T extends BaseDTO> T mapFieldsToReadOnly(Map<String, Object> row, Supplier<T> factory) {
+        T dto = factory.get();
+        new BeanWrapperImpl(dto).setPropertyValues(row);
+        return dto;
+    }
+
+    public static <T extends BaseDTO> List<T> mapFieldsToReadOnly(List<Map<String, Object>> rows, Supplier<T> factory) {
+        List<T> dtos = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            dtos.add(mapFieldsToReadOnly(row, factory));
+        }
+        return dtos;
+    }
+
+    private static boolean expands(Set<String> expand, String association) {
+        return expand != null && expand.contains(association);
     }
 }
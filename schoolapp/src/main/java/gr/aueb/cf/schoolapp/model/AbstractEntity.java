@@ -3,12 +3,13 @@ package gr.aueb.cf.schoolapp.model;
 import jakarta.persistence.Column;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.ColumnDefault;
-import org.hibernate.annotations.DynamicInsert;
 import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
@@ -21,10 +22,9 @@ import java.time.LocalDateTime;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@DynamicInsert
 @DynamicUpdate
 @EntityListeners(AuditingEntityListener.class)
-public abstract class AbstractEntity {
+public abstract class AbstractEntity extends IdentifiedEntity {
 
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -37,4 +37,24 @@ public abstract class AbstractEntity {
     @ColumnDefault("true")
     @Column(name = "is_active")
     private Boolean isActive;
+
+    /**
+     * Incremented on every update, which only succeeds if the row still has the version read.
+     * Also identifies the state of the entity in the ETags of its representation.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    /**
+     * Applies the column default in Java. Inserts list every column, so that all inserts
+     * of an entity share one statement and can be batched.
+     */
+    @PrePersist
+    protected void applyDefaults() {
+        if (isActive == null) {
+            isActive = true;
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package gr.aueb.cf.schoolapp.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -17,17 +18,19 @@ import java.util.Set;
 @AllArgsConstructor
 @Getter
 @Setter
-@EqualsAndHashCode(of = "id")
-public class City {
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class City extends IdentifiedEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cities")
+    @TableGenerator(name = "cities", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "cities", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @Column(length = 45, nullable = false)
     private String city;
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "city")
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "city")
     @Getter(AccessLevel.PROTECTED)
     @JsonIgnore
     private Set<Student> students = new HashSet<>();
@@ -1,55 +1,49 @@
 package gr.aueb.cf.schoolapp.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Represents a course in the school application.
  */
 @Entity
 @Table(name = "courses")
+@NamedEntityGraph(name = "Course.list", attributeNodes = @NamedAttributeNode("teacher"))
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
-@EqualsAndHashCode(of = "id")
-public class Course {
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class Course extends IdentifiedEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "courses")
+    @TableGenerator(name = "courses", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "courses", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "course_name", length = 45, nullable = false)
     private String courseName;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
     @JsonIgnore
     private Teacher teacher;
 
-    @ManyToMany(mappedBy = "courses")
+    @OneToMany(mappedBy = "course", fetch = FetchType.LAZY)
     @Getter(AccessLevel.PROTECTED)
-    private Set<Student> students = new HashSet<>();
+    @JsonIgnore
+    private Set<Enrollment> enrollments = new HashSet<>();
 
     public Set<Student> getAllStudents() {
-        return Collections.unmodifiableSet(students);
-    }
-
-    public void addStudent(Student student) {
-        if (student == null || students.contains(student)) return;
-        students.add(student);
-        student.addCourse(this);
-    }
-
-
-    public void removeStudent(Student student) {
-        if (student == null || !students.contains(student)) return;
-        students.remove(student);
-        student.removeCourse(this);
+        return enrollments.stream()
+                .map(Enrollment::getStudent)
+                .collect(Collectors.toUnmodifiableSet());
     }
 
     public void addTeacher(Teacher teacher) {
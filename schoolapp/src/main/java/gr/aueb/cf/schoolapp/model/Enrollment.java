@@ -0,0 +1,74 @@
+package gr.aueb.cf.schoolapp.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Represents the enrollment of a student in a course.
+ * Each enrollment is a row of the students_courses table, so enrolling or unenrolling
+ * a student writes a single row without loading the roster of either side.
+ */
+@Entity
+@Table(name = "students_courses", indexes = @Index(name = "idx_students_courses_created_at", columnList = "created_at"))
+@NoArgsConstructor
+@Getter
+@Setter
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class Enrollment extends AbstractEntity implements Persistable<EnrollmentId> {
+
+    @EmbeddedId
+    private EnrollmentId id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @MapsId("studentId")
+    @JoinColumn(name = "student_id", referencedColumnName = "id")
+    @JsonIgnore
+    private Student student;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @MapsId("courseId")
+    @JoinColumn(name = "course_id", referencedColumnName = "id")
+    @JsonIgnore
+    private Course course;
+
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean isNew = true;
+
+    public Enrollment(Student student, Course course) {
+        this.id = new EnrollmentId(student.getId(), course.getId());
+        this.student = student;
+        this.course = course;
+        setIsActive(true);
+    }
+
+    /**
+     * The key is assigned by the application, so saving a new enrollment
+     * must persist it directly instead of merging it with a select first.
+     */
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public String toString() {
+        return "Enrollment{" +
+                "studentId=" + id.getStudentId() +
+                ", courseId=" + id.getCourseId() +
+                ", createdAt=" + getCreatedAt() +
+                '}';
+    }
+}
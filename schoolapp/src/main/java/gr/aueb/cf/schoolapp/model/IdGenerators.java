@@ -0,0 +1,29 @@
+package gr.aueb.cf.schoolapp.model;
+
+import java.util.List;
+
+/**
+ * The table that generates entity IDs.
+ * MySQL has no sequences and IDENTITY columns force Hibernate to insert each row on its own
+ * to learn its ID, so IDs come from one row per entity table in {@link #TABLE} instead.
+ * Hibernate reserves {@link #ALLOCATION_SIZE} IDs per round trip with its pooled optimizer:
+ * a reservation reads the stored value {@code n}, takes the IDs from {@code n - ALLOCATION_SIZE + 1}
+ * to {@code n} and stores {@code n + ALLOCATION_SIZE}. IDs are assigned on persist, so inserts
+ * can be sent in JDBC batches.
+ * The row of each generator is named after the table whose IDs it generates.
+ */
+public final class IdGenerators {
+    public static final String TABLE = "id_generators";
+    public static final String NAME_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    /**
+     * The tables whose IDs are generated, which are also the names of their generators.
+     */
+    public static final List<String> TABLES = List.of(
+            "users", "students", "teachers", "cities", "specialities", "courses",
+            "refresh_tokens", "revoked_tokens", "import_jobs", "import_errors");
+
+    private IdGenerators() {}
+}
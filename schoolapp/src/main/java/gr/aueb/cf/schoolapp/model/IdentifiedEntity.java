@@ -0,0 +1,39 @@
+package gr.aueb.cf.schoolapp.model;
+
+import jakarta.persistence.MappedSuperclass;
+import org.hibernate.proxy.HibernateProxy;
+
+/**
+ * Base class giving every entity an identity based on its primary key.
+ * Two entities are equal when they are of the same entity type and have the same
+ * non-null id, and equal entities hash alike because the hash code is that of the id.
+ * Ids are assigned on persist, before the entity is flushed, so a persisted entity keeps
+ * its hash for the rest of its life. An entity without an id is equal only to itself and
+ * hashes by identity, so it must be persisted before it is put in a hash-based collection.
+ */
+@MappedSuperclass
+public abstract class IdentifiedEntity {
+
+    public abstract Object getId();
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IdentifiedEntity other)) return false;
+        if (entityClass(this) != entityClass(other)) return false;
+        Object id = getId();
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        Object id = getId();
+        return (id != null) ? id.hashCode() : System.identityHashCode(this);
+    }
+
+    private static Class<?> entityClass(Object entity) {
+        return (entity instanceof HibernateProxy proxy)
+                ? proxy.getHibernateLazyInitializer().getPersistentClass()
+                : entity.getClass();
+    }
+}
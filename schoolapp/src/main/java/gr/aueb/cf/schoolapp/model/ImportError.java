@@ -0,0 +1,35 @@
+package gr.aueb.cf.schoolapp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A row of a bulk import that was rejected, with the reason.
+ * Rows are numbered from one, not counting the CSV header.
+ */
+@Entity
+@Table(name = "import_errors", indexes = {
+        @Index(name = "idx_import_errors_job_id", columnList = "job_id, row_no")
+})
+@NoArgsConstructor
+@Getter
+@Setter
+public class ImportError extends IdentifiedEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "import_errors")
+    @TableGenerator(name = "import_errors", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "import_errors", allocationSize = IdGenerators.ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "row_no", nullable = false)
+    private long rowNumber;
+
+    @Column(length = 255, nullable = false)
+    private String message;
+}
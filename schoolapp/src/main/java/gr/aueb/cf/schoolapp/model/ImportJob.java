@@ -0,0 +1,71 @@
+package gr.aueb.cf.schoolapp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A bulk import of students or teachers.
+ * The counters are updated in the same transaction as the rows of each chunk, so
+ * {@code processedRows} is always the number of leading rows of the file that are done,
+ * and an interrupted import resumes right after them.
+ */
+@Entity
+@Table(name = "import_jobs")
+@NoArgsConstructor
+@Getter
+@Setter
+public class ImportJob extends IdentifiedEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "import_jobs")
+    @TableGenerator(name = "import_jobs", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "import_jobs", allocationSize = IdGenerators.ALLOCATION_SIZE)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ImportType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ImportStatus status;
+
+    @Column(name = "processed_rows", nullable = false)
+    private long processedRows;
+
+    @Column(name = "imported_rows", nullable = false)
+    private long importedRows;
+
+    @Column(name = "failed_rows", nullable = false)
+    private long failedRows;
+
+    @Column(length = 255)
+    private String message;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public ImportJob(ImportType type) {
+        this.type = type;
+        this.status = ImportStatus.PENDING;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportJob{" +
+                "id=" + id +
+                ", type=" + type +
+                ", status=" + status +
+                ", processedRows=" + processedRows +
+                '}';
+    }
+}
@@ -0,0 +1,12 @@
+package gr.aueb.cf.schoolapp.model;
+
+/**
+ * Enumeration representing the state of a bulk import.
+ * A failed import, or one whose node stopped while running, can be resumed.
+ */
+public enum ImportStatus {
+    PENDING,
+    RUNNING,
+    FAILED,
+    COMPLETED
+}
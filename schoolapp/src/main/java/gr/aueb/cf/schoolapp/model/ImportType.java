@@ -0,0 +1,9 @@
+package gr.aueb.cf.schoolapp.model;
+
+/**
+ * Enumeration representing what a bulk import creates.
+ */
+public enum ImportType {
+    STUDENTS,
+    TEACHERS
+}
@@ -0,0 +1,65 @@
+package gr.aueb.cf.schoolapp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A refresh token issued to a user.
+ * Only the SHA-256 hash of the token is stored. Every refresh uses the token up and
+ * issues its successor in the same family; presenting a used token again means the
+ * token was copied, and the whole family is revoked.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_refresh_tokens_family", columnList = "family"),
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")
+})
+@NoArgsConstructor
+@Getter
+@Setter
+public class RefreshToken extends IdentifiedEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "refresh_tokens")
+    @TableGenerator(name = "refresh_tokens", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "refresh_tokens", allocationSize = IdGenerators.ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "token_hash", length = 64, nullable = false)
+    private String tokenHash;
+
+    @Column(length = 36, nullable = false)
+    private String family;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", referencedColumnName = "id")
+    private User user;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "used_at")
+    private Instant usedAt;
+
+    public RefreshToken(String tokenHash, String family, User user, Instant expiresAt) {
+        this.tokenHash = tokenHash;
+        this.family = family;
+        this.user = user;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "RefreshToken{" +
+                "id=" + id +
+                ", family='" + family + '\'' +
+                ", expiresAt=" + expiresAt +
+                ", usedAt=" + usedAt +
+                '}';
+    }
+}
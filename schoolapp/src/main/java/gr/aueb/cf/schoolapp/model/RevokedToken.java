@@ -0,0 +1,60 @@
+package gr.aueb.cf.schoolapp.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A revocation of access tokens before their expiration.
+ * Either a single token, identified by its {@code jti}, or, when the token ID is null,
+ * every token issued to the user up to the time of revocation.
+ * A row is needed only until the tokens it revokes have expired anyway.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_token_id", columnList = "token_id", unique = true),
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at")
+})
+@NoArgsConstructor
+@Getter
+@Setter
+public class RevokedToken extends IdentifiedEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "revoked_tokens")
+    @TableGenerator(name = "revoked_tokens", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "revoked_tokens", allocationSize = IdGenerators.ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public RevokedToken(String tokenId, Long userId, Instant revokedAt, Instant expiresAt) {
+        this.tokenId = tokenId;
+        this.userId = userId;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "RevokedToken{" +
+                "id=" + id +
+                ", tokenId='" + tokenId + '\'' +
+                ", userId=" + userId +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -1,6 +1,7 @@
 package gr.aueb.cf.schoolapp.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -17,17 +18,19 @@ import java.util.Set;
 @AllArgsConstructor
 @Getter
 @Setter
-@EqualsAndHashCode(of = "id")
-public class Speciality {
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class Speciality extends IdentifiedEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "specialities")
+    @TableGenerator(name = "specialities", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "specialities", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @Column(length = 50, nullable = false)
     private String speciality;
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "speciality")
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "speciality")
     @Getter(AccessLevel.PROTECTED)
     @JsonIgnore
     private Set<Teacher> teachers = new HashSet<>();
@@ -5,24 +5,38 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Represents a student in the school application.
  */
 @Entity
 @Table(name = "students")
+@NamedEntityGraph(name = "Student.list", attributeNodes = {
+        @NamedAttributeNode("city"),
+        @NamedAttributeNode(value = "user", subgraph = "user")
+}, subgraphs = @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("teacher")))
+@NamedEntityGraph(name = "Student.detail", attributeNodes = {
+        @NamedAttributeNode("city"),
+        @NamedAttributeNode(value = "user", subgraph = "user"),
+        @NamedAttributeNode(value = "enrollments", subgraph = "enrollments")
+}, subgraphs = {
+        @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("teacher")),
+        @NamedSubgraph(name = "enrollments", attributeNodes = @NamedAttributeNode("course"))
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
-@EqualsAndHashCode(callSuper = true)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Student extends AbstractEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "students")
+    @TableGenerator(name = "students", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "students", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @Column(length = 45, nullable = false)
@@ -37,46 +51,35 @@ public class Student extends AbstractEntity {
     @Column(name = "email")
     private String email;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "city_id", referencedColumnName = "id")
     @JsonIgnore
     private City city;
 
-    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id", unique = true)
     @JsonIgnore
     private User user;
 
-    @ManyToMany( fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "student", fetch = FetchType.LAZY)
     @Getter(AccessLevel.PROTECTED)
-    @JoinTable(
-            name = "students_courses",
-            joinColumns = @JoinColumn(name = "student_id", referencedColumnName = "id"),
-            inverseJoinColumns = @JoinColumn(name = "course_id", referencedColumnName = "id")
-    )
-    private Set<Course> courses = new HashSet<>();
+    @JsonIgnore
+    private Set<Enrollment> enrollments = new HashSet<>();
 
     public Set<Course> getAllCourses() {
-        return Collections.unmodifiableSet(courses);
-    }
-
-    public void addCourse(Course course) {
-        if (course == null || courses.contains(course)) return;
-        courses.add(course);
-        course.addStudent(this);
+        return enrollments.stream()
+                .map(Enrollment::getCourse)
+                .collect(Collectors.toUnmodifiableSet());
     }
 
-
-    public void removeCourse(Course course) {
-        courses.remove(course);
-        course.removeStudent(this);
+    public Enrollment enroll(Course course) {
+        Enrollment enrollment = new Enrollment(this, course);
+        enrollments.add(enrollment);
+        return enrollment;
     }
 
-
-    public void clearCourses() {
-        for (Course course : new HashSet<>(courses)) {
-            removeCourse(course);
-        }
+    public void clearEnrollments() {
+        enrollments.clear();
     }
 
     public void addCity(City city) {
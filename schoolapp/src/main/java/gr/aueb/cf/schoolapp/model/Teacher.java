@@ -1,6 +1,7 @@
 package gr.aueb.cf.schoolapp.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -13,15 +14,26 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "teachers")
+@NamedEntityGraph(name = "Teacher.list", attributeNodes = {
+        @NamedAttributeNode("speciality"),
+        @NamedAttributeNode(value = "user", subgraph = "user")
+}, subgraphs = @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("student")))
+@NamedEntityGraph(name = "Teacher.detail", attributeNodes = {
+        @NamedAttributeNode("speciality"),
+        @NamedAttributeNode(value = "user", subgraph = "user"),
+        @NamedAttributeNode("courses")
+}, subgraphs = @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("student")))
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
-@EqualsAndHashCode(callSuper = true)
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Teacher extends AbstractEntity{
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "teachers")
+    @TableGenerator(name = "teachers", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "teachers", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @Column(length = 45, nullable = false)
@@ -36,17 +48,17 @@ public class Teacher extends AbstractEntity{
     @Column(nullable = false)
     private String email;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "speciality_id", referencedColumnName = "id")
     @JsonIgnore
     private Speciality speciality;
 
-    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id", unique = true)
     @JsonIgnore
     private User user;
 
-    @OneToMany(mappedBy = "teacher", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "teacher", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @Getter(AccessLevel.PROTECTED)
     @JsonIgnore
     private Set<Course> courses = new HashSet<>();
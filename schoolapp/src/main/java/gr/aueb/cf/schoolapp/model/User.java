@@ -1,13 +1,12 @@
 package gr.aueb.cf.schoolapp.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.*;
 
@@ -16,15 +15,21 @@ import java.util.*;
  */
 @Entity
 @Table(name = "users")
+@NamedEntityGraph(name = "User.authentication", attributeNodes = {
+        @NamedAttributeNode("teacher"),
+        @NamedAttributeNode("student")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
-@EqualsAndHashCode(of = "id")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User extends AbstractEntity implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "users")
+    @TableGenerator(name = "users", table = IdGenerators.TABLE, pkColumnName = IdGenerators.NAME_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "users", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @Column(length = 45, nullable = false)
@@ -36,11 +41,11 @@ public class User extends AbstractEntity implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Role role;
 
-    @OneToOne(fetch = FetchType.EAGER,cascade = CascadeType.ALL, mappedBy = "user", orphanRemoval = true)
+    @OneToOne(fetch = FetchType.LAZY,cascade = CascadeType.ALL, mappedBy = "user", orphanRemoval = true)
     @JsonIgnore
     private Teacher teacher;
 
-    @OneToOne(fetch = FetchType.EAGER,cascade = CascadeType.ALL, mappedBy = "user", orphanRemoval = true)
+    @OneToOne(fetch = FetchType.LAZY,cascade = CascadeType.ALL, mappedBy = "user", orphanRemoval = true)
     @JsonIgnore
     private Student student;
 
@@ -61,29 +66,24 @@ public class User extends AbstractEntity implements UserDetails {
         teacher.setUser(this);
     }
 
-    public static User NEW_TEACHER(String username, String password) {
+    public static User NEW_TEACHER(String username, String encodedPassword) {
         User user = new User();
         user.setRole(Role.TEACHER);
         user.setUsername(username);
-        user.setPassword(encodePassword(password));
+        user.setPassword(encodedPassword);
         user.setIsActive(true);
         return user;
     }
 
-    public static User NEW_STUDENT(String username, String password) {
+    public static User NEW_STUDENT(String username, String encodedPassword) {
         User user = new User();
         user.setRole(Role.STUDENT);
         user.setUsername(username);
-        user.setPassword(encodePassword(password));
+        user.setPassword(encodedPassword);
         user.setIsActive(true);
         return user;
     }
 
-    private static String encodePassword(String password) {
-        PasswordEncoder encoder = new BCryptPasswordEncoder();
-        return encoder.encode(password);
-    }
-
     @Override
     public String toString() {
         return "User{" +
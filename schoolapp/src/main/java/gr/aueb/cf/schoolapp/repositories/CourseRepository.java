@@ -1,9 +1,31 @@
 package gr.aueb.cf.schoolapp.repositories;
 
 import gr.aueb.cf.schoolapp.model.Course;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 public interface CourseRepository extends JpaRepository<Course, Long> {
+    @EntityGraph("Course.list")
     Course findCourseById(Long id);
 
+    @EntityGraph("Course.list")
+    List<Course> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Override
+    @EntityGraph("Course.list")
+    List<Course> findAll();
+
+    @Query("SELECT c.id FROM Course c WHERE c.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph("Course.list")
+    @Query("SELECT c FROM Course c WHERE c.id IN (SELECT e.id.courseId FROM Enrollment e WHERE e.id.studentId = :studentId) ORDER BY c.id ASC")
+    List<Course> findEnrolledByStudentId(@Param("studentId") Long studentId);
 }
@@ -0,0 +1,56 @@
+package gr.aueb.cf.schoolapp.repositories;
+
+import gr.aueb.cf.schoolapp.model.Enrollment;
+import gr.aueb.cf.schoolapp.model.EnrollmentId;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface EnrollmentRepository extends JpaRepository<Enrollment, EnrollmentId> {
+    @Query("SELECT e.id.studentId FROM Enrollment e WHERE e.id.courseId = :courseId AND e.id.studentId IN :studentIds")
+    Set<Long> findEnrolledStudentIds(@Param("courseId") Long courseId, @Param("studentIds") Collection<Long> studentIds);
+
+    @Query("SELECT e.id.courseId FROM Enrollment e WHERE e.id.studentId = :studentId AND e.id.courseId IN :courseIds")
+    Set<Long> findEnrolledCourseIds(@Param("studentId") Long studentId, @Param("courseIds") Collection<Long> courseIds);
+
+    @Query("SELECT e.id.courseId FROM Enrollment e WHERE e.id.studentId = :studentId")
+    Set<Long> findCourseIdsByStudentId(@Param("studentId") Long studentId);
+
+    @Query("SELECT e FROM Enrollment e WHERE e.id.courseId = :courseId AND e.createdAt >= :from AND e.createdAt < :to ORDER BY e.createdAt ASC, e.id.studentId ASC")
+    List<Enrollment> findByCourseIdCreatedBetween(@Param("courseId") Long courseId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
+    @Query("SELECT e FROM Enrollment e WHERE e.id.studentId = :studentId AND e.createdAt >= :from AND e.createdAt < :to ORDER BY e.createdAt ASC, e.id.courseId ASC")
+    List<Enrollment> findByStudentIdCreatedBetween(@Param("studentId") Long studentId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Enrollment e WHERE e.id.studentId = :studentId AND e.id.courseId = :courseId")
+    int deleteByStudentIdAndCourseId(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("DELETE FROM Enrollment e WHERE e.id.studentId = :studentId AND e.id.courseId IN :courseIds")
+    int deleteByStudentIdAndCourseIdIn(@Param("studentId") Long studentId, @Param("courseIds") Collection<Long> courseIds);
+
+    @Modifying
+    @Query("DELETE FROM Enrollment e WHERE e.id.studentId = :studentId")
+    int deleteByStudentId(@Param("studentId") Long studentId);
+
+    @Modifying
+    @Query("DELETE FROM Enrollment e WHERE e.id.courseId = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT e FROM Enrollment e ORDER BY e.id.studentId ASC, e.id.courseId ASC")
+    Stream<Enrollment> streamAll();
+}
@@ -0,0 +1,81 @@
+package gr.aueb.cf.schoolapp.repositories;
+
+import gr.aueb.cf.schoolapp.model.IdGenerators;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains the rows of {@link IdGenerators#TABLE} outside Hibernate.
+ * At startup every generator is moved past the largest ID already in its table, so that
+ * rows inserted while the tables used IDENTITY columns are never handed out again.
+ * Code that writes rows with plain JDBC reserves its IDs here, from the same rows and with
+ * the same arithmetic as Hibernate's pooled optimizer, so both never hand out the same ID.
+ */
+@Repository
+@Slf4j
+public class IdAllocator {
+    private static final String CREATE_ROW =
+            "INSERT IGNORE INTO " + IdGenerators.TABLE + " (" + IdGenerators.NAME_COLUMN + ", " + IdGenerators.VALUE_COLUMN + ") VALUES (?, 0)";
+    private static final String SEED_ROW =
+            "UPDATE " + IdGenerators.TABLE + " SET " + IdGenerators.VALUE_COLUMN + " = GREATEST(" + IdGenerators.VALUE_COLUMN
+                    + ", (SELECT COALESCE(MAX(id), 0) + ? FROM %s)) WHERE " + IdGenerators.NAME_COLUMN + " = ?";
+    private static final String RESERVE =
+            "UPDATE " + IdGenerators.TABLE + " SET " + IdGenerators.VALUE_COLUMN + " = LAST_INSERT_ID(" + IdGenerators.VALUE_COLUMN
+                    + ") + ? WHERE " + IdGenerators.NAME_COLUMN + " = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+
+    /**
+     * The entity manager factory is taken only so that the schema, including the generator
+     * table, exists before the generators are seeded.
+     */
+    public IdAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Moves every generator past the largest ID in its table. The pooled optimizer hands out
+     * up to {@link IdGenerators#ALLOCATION_SIZE} IDs below the stored value, so the value is
+     * kept at least that far above the largest ID.
+     */
+    @PostConstruct
+    public void seed() {
+        requiresNew.executeWithoutResult(status -> {
+            for (String table : IdGenerators.TABLES) {
+                jdbcTemplate.update(CREATE_ROW, table);
+                jdbcTemplate.update(String.format(SEED_ROW, table), IdGenerators.ALLOCATION_SIZE, table);
+            }
+        });
+        log.info("Seeded " + IdGenerators.TABLES.size() + " ID generators");
+    }
+
+    /**
+     * Reserves a block of consecutive IDs for rows written with plain JDBC.
+     * The reservation commits on its own, so the generator row is not locked while the rows are written;
+     * IDs of rows that are then rolled back are skipped, as with Hibernate.
+     *
+     * @param table the table the IDs are for.
+     * @param count the number of IDs.
+     * @return the first ID of the block, which runs to {@code first + count - 1}.
+     */
+    public long allocate(String table, int count) {
+        Long reserved = requiresNew.execute(status -> {
+            if (jdbcTemplate.update(RESERVE, count, table) != 1) {
+                throw new IllegalStateException("No ID generator for table " + table);
+            }
+            return jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class);
+        });
+        // Hibernate takes the IDs up to the value it reads, so the block starts right after the
+        // IDs the previous reader took and ends right before those of the next.
+        return reserved - IdGenerators.ALLOCATION_SIZE + 1;
+    }
+}
@@ -0,0 +1,11 @@
+package gr.aueb.cf.schoolapp.repositories;
+
+import gr.aueb.cf.schoolapp.model.ImportError;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ImportErrorRepository extends JpaRepository<ImportError, Long> {
+    List<ImportError> findByJobIdOrderByRowNumberAsc(Long jobId, Pageable pageable);
+}
@@ -0,0 +1,32 @@
+package gr.aueb.cf.schoolapp.repositories;
+
+import gr.aueb.cf.schoolapp.model.ImportJob;
+import gr.aueb.cf.schoolapp.model.ImportStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ImportJob j SET j.status = :running, j.message = NULL, j.updatedAt = :now WHERE j.id = :id " +
+            "AND (j.status IN :resumable OR (j.status = :running AND j.updatedAt < :stale))")
+    int claim(@Param("id") Long id, @Param("running") ImportStatus running, @Param("resumable") Collection<ImportStatus> resumable,
+              @Param("now") Instant now, @Param("stale") Instant stale);
+
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.processedRows = j.processedRows + :processed, j.importedRows = j.importedRows + :imported, " +
+            "j.failedRows = j.failedRows + :failed, j.updatedAt = :now WHERE j.id = :id")
+    int advance(@Param("id") Long id, @Param("processed") long processed, @Param("imported") long imported,
+                @Param("failed") long failed, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ImportJob j SET j.status = :status, j.message = :message, j.updatedAt = :now WHERE j.id = :id")
+    int finish(@Param("id") Long id, @Param("status") ImportStatus status, @Param("message") String message, @Param("now") Instant now);
+}
@@ -0,0 +1,100 @@
+package gr.aueb.cf.schoolapp.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Runs projection queries that select only the requested attributes of an entity.
+ * Rows are returned as maps from field name to value, so that neither the unselected
+ * columns nor the associations of the entity are read from the database.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProjectionRepository {
+    private final EntityManager entityManager;
+
+    /**
+     * Selects a set of attributes of the entities matching a specification.
+     *
+     * @param entityClass the entity to query.
+     * @param fields      the field names to return, mapped to dotted attribute paths.
+     *                    Every segment but the last is reached through a left join.
+     * @param spec        the filter, may be null.
+     * @param sort        the order of the rows.
+     * @param limit       the maximum number of rows, or 0 for no limit.
+     * @param <T>         the entity type.
+     * @return one map per matching entity, in the requested order.
+     */
+    public <T> List<Map<String, Object>> findFields(Class<T> entityClass, Map<String, String> fields, Specification<T> spec, Sort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+
+        Map<String, Join<?, ?>> joins = new HashMap<>();
+        List<Selection<?>> selections = new ArrayList<>();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            selections.add(path(root, joins, field.getValue()).alias(field.getKey()));
+        }
+        query.multiselect(selections);
+
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (limit > 0) {
+            typedQuery.setMaxResults(limit);
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : typedQuery.getResultList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String name : fields.keySet()) {
+                row.put(name, tuple.get(name));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Selects a set of attributes of the entity with the given ID.
+     *
+     * @param entityClass the entity to query.
+     * @param fields      the field names to return, mapped to dotted attribute paths.
+     * @param id          the ID of the entity.
+     * @param <T>         the entity type.
+     * @return the selected attributes, or empty if no entity has the given ID.
+     */
+    public <T> Optional<Map<String, Object>> findFieldsById(Class<T> entityClass, Map<String, String> fields, Object id) {
+        Specification<T> byId = (root, query, cb) -> cb.equal(root.get("id"), id);
+        return findFields(entityClass, fields, byId, Sort.unsorted(), 1).stream().findFirst();
+    }
+
+    private static Path<?> path(Root<?> root, Map<String, Join<?, ?>> joins, String attributePath) {
+        String[] segments = attributePath.split("\\.");
+        From<?, ?> from = root;
+        String joined = "";
+        for (int i = 0; i < segments.length - 1; i++) {
+            joined = joined.isEmpty() ? segments[i] : joined + "." + segments[i];
+            From<?, ?> parent = from;
+            String segment = segments[i];
+            from = joins.computeIfAbsent(joined, k -> parent.join(segment, JoinType.LEFT));
+        }
+        return from.get(segments[segments.length - 1]);
+    }
+}
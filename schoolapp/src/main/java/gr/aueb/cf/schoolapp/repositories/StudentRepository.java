@@ -2,12 +2,45 @@ package gr.aueb.cf.schoolapp.repositories;
 
 import gr.aueb.cf.schoolapp.model.Gender;
 import gr.aueb.cf.schoolapp.model.Student;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface StudentRepository extends JpaRepository<Student, Long> {
+    @EntityGraph("Student.list")
     List<Student> findByLastnameStartingWith(String lastname);
+
+    @EntityGraph("Student.detail")
     Student findStudentById(Long id);
+
+    @EntityGraph("Student.list")
+    Student findWithUserById(Long id);
+
+    @EntityGraph("Student.list")
     List<Student> findStudentByGender(Gender gender);
+
+    @EntityGraph("Student.list")
+    List<Student> findAllByOrderByLastnameAscIdAsc(Pageable pageable);
+
+    @EntityGraph("Student.list")
+    @Query("SELECT s FROM Student s WHERE s.lastname > :lastname OR (s.lastname = :lastname AND s.id > :id) ORDER BY s.lastname ASC, s.id ASC")
+    List<Student> findPageAfter(@Param("lastname") String lastname, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT s.id FROM Student s WHERE s.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT s FROM Student s ORDER BY s.id ASC")
+    Stream<Student> streamAll();
 }
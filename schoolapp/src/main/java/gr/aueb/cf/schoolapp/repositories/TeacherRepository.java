@@ -1,11 +1,41 @@
 package gr.aueb.cf.schoolapp.repositories;
 
 import gr.aueb.cf.schoolapp.model.Teacher;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TeacherRepository extends JpaRepository<Teacher, Long> {
+    @EntityGraph("Teacher.list")
     List<Teacher> findByLastnameStartingWith(String lastname);
+
+    @EntityGraph("Teacher.detail")
     Teacher findTeacherById(Long id);
+
+    @EntityGraph("Teacher.list")
+    Teacher findWithUserById(Long id);
+
+    @EntityGraph("Teacher.list")
+    List<Teacher> findAllByOrderByLastnameAscIdAsc(Pageable pageable);
+
+    @EntityGraph("Teacher.list")
+    @Query("SELECT t FROM Teacher t WHERE t.lastname > :lastname OR (t.lastname = :lastname AND t.id > :id) ORDER BY t.lastname ASC, t.id ASC")
+    List<Teacher> findPageAfter(@Param("lastname") String lastname, @Param("id") Long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = "courses")
+    Optional<Teacher> findWithCoursesById(Long id);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT t FROM Teacher t ORDER BY t.id ASC")
+    Stream<Teacher> streamAll();
 }
@@ -2,16 +2,43 @@ package gr.aueb.cf.schoolapp.repositories;
 
 import gr.aueb.cf.schoolapp.model.Role;
 import gr.aueb.cf.schoolapp.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    @EntityGraph("User.authentication")
     List<User> findByUsernameStartingWith(String username);
+
+    @EntityGraph("User.authentication")
     User findUserById(Long id);
+
+    @EntityGraph("User.authentication")
     Optional<User> findByUsername(String username);
+
+    @EntityGraph("User.authentication")
     User findUserByUsername(String username);
+
     Optional<User> findByRole(Role role);
     Long countByRole(Role role);
+
+    @EntityGraph("User.authentication")
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    Set<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id AND u.password = :oldPassword")
+    int updatePassword(@Param("id") Long id, @Param("oldPassword") String oldPassword, @Param("password") String password);
 }
@@ -8,6 +8,7 @@ import gr.aueb.cf.schoolapp.mapper.Mapper;
 import gr.aueb.cf.schoolapp.model.City;
 import gr.aueb.cf.schoolapp.service.ICityService;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.util.FieldSelection;
 import gr.aueb.cf.schoolapp.validator.CityInsertValidator;
 import gr.aueb.cf.schoolapp.validator.CityUpdateValidator;
 import io.swagger.v3.oas.annotations.Operation;
@@ -27,6 +28,7 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * REST Controller for managing City entities.
@@ -140,6 +142,8 @@ public class CityRestController {
      * Retrieves a city by its ID.
      *
      * @param id the ID of the city to retrieve.
+     * @param expand the associations to embed in the response.
+     * @param fields the fields to return instead of the full representation; expand is then ignored.
      * @return a ResponseEntity with the retrieved city or an error status.
      */
     @Operation(summary = "Get a city by id")
@@ -148,21 +152,30 @@ public class CityRestController {
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = CityReadOnlyDTO.class)) }),
             @ApiResponse(responseCode = "404", description = "City not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field requested",
                     content = @Content)})
     @GetMapping("/{id}")
-    public ResponseEntity<CityReadOnlyDTO> getCity(@PathVariable("id") Long id) {
+    public ResponseEntity<CityReadOnlyDTO> getCity(@PathVariable("id") Long id, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields) {
         try {
+            if (FieldSelection.isSparse(fields) || expand == null || expand.isEmpty()) {
+                return ResponseEntity.ok(Mapper.mapFieldsToReadOnly(cityService.getCityById(id, fields), CityReadOnlyDTO::new));
+            }
             City city = cityService.getCityById(id);
-            CityReadOnlyDTO dto = Mapper.mapCityToReadOnly(city);
+            CityReadOnlyDTO dto = Mapper.mapCityToReadOnly(city, expand);
             return ResponseEntity.ok(dto);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 
     /**
      * Retrieves all cities.
      *
+     * @param expand the associations to embed in the response.
+     * @param fields the fields to return instead of the full representation; expand is then ignored.
      * @return a ResponseEntity with a list of all cities or an error status.
      */
     @Operation(summary = "Get all cities")
@@ -173,17 +186,22 @@ public class CityRestController {
             @ApiResponse(responseCode = "400", description = "Invalid request",
                     content = @Content)})
     @GetMapping("/")
-    public ResponseEntity<List<CityReadOnlyDTO>> getAllCities() {
+    public ResponseEntity<List<CityReadOnlyDTO>> getAllCities(@RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields) {
         List<City> cities;
         try {
+            if (FieldSelection.isSparse(fields) || expand == null || expand.isEmpty()) {
+                return new ResponseEntity<>(Mapper.mapFieldsToReadOnly(cityService.getAllCities(fields), CityReadOnlyDTO::new), HttpStatus.OK);
+            }
             cities = cityService.getAllCities();
             List<CityReadOnlyDTO> readOnlyDTOS = new ArrayList<>();
             for (City city : cities) {
-                readOnlyDTOS.add(Mapper.mapCityToReadOnly(city));
+                readOnlyDTOS.add(Mapper.mapCityToReadOnly(city, expand));
             }
             return new ResponseEntity<>(readOnlyDTOS, HttpStatus.OK);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 }
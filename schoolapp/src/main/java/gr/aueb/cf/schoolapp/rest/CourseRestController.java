@@ -3,10 +3,18 @@ package gr.aueb.cf.schoolapp.rest;
 import gr.aueb.cf.schoolapp.dto.CourseInsertDTO;
 import gr.aueb.cf.schoolapp.dto.CourseReadOnlyDTO;
 import gr.aueb.cf.schoolapp.dto.CourseUpdateDTO;
+import gr.aueb.cf.schoolapp.dto.EnrollmentInsertDTO;
+import gr.aueb.cf.schoolapp.dto.EnrollmentReadOnlyDTO;
+import gr.aueb.cf.schoolapp.dto.EnrollmentResultDTO;
+import gr.aueb.cf.schoolapp.dto.KeysetPageDTO;
 import gr.aueb.cf.schoolapp.mapper.Mapper;
 import gr.aueb.cf.schoolapp.model.Course;
+import gr.aueb.cf.schoolapp.model.Enrollment;
 import gr.aueb.cf.schoolapp.service.ICourseService;
+import gr.aueb.cf.schoolapp.service.IEnrollmentService;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.util.FieldSelection;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 import gr.aueb.cf.schoolapp.validator.CourseInsertValidator;
 import gr.aueb.cf.schoolapp.validator.CourseUpdateValidator;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,6 +24,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -23,9 +32,12 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * REST Controller for managing Course entities.
@@ -35,6 +47,7 @@ import java.util.Objects;
 @RequiredArgsConstructor
 public class CourseRestController {
     private final ICourseService courseService;
+    private final IEnrollmentService enrollmentService;
     private final CourseInsertValidator insertValidator;
     private final CourseUpdateValidator updateValidator;
 
@@ -139,6 +152,8 @@ public class CourseRestController {
      * Retrieves a course by its ID.
      *
      * @param id the ID of the course to retrieve.
+     * @param expand the associations to embed in the response.
+     * @param fields the fields to return instead of the full representation; expand is then ignored.
      * @return a ResponseEntity with the retrieved course or an error status.
      */
     @Operation(summary = "Get a course by id")
@@ -147,42 +162,129 @@ public class CourseRestController {
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = CourseReadOnlyDTO.class)) }),
             @ApiResponse(responseCode = "404", description = "Course not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field requested",
                     content = @Content)})
     @GetMapping("/{id}")
-    public ResponseEntity<CourseReadOnlyDTO> getCourse(@PathVariable("id") Long id) {
+    public ResponseEntity<CourseReadOnlyDTO> getCourse(@PathVariable("id") Long id, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields) {
         try {
+            if (FieldSelection.isSparse(fields) || expand == null || expand.isEmpty()) {
+                return ResponseEntity.ok(Mapper.mapFieldsToReadOnly(courseService.getCourseById(id, fields), CourseReadOnlyDTO::new));
+            }
             Course course = courseService.getCourseById(id);
-            CourseReadOnlyDTO dto = Mapper.mapToReadOnlyDTO(course);
+            CourseReadOnlyDTO dto = Mapper.mapToReadOnlyDTO(course, expand);
             return ResponseEntity.ok(dto);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 
     /**
-     * Retrieves all courses.
+     * Retrieves a page of courses ordered by ID.
      *
-     * @return a ResponseEntity with a list of all courses or an error status.
+     * @param limit     the maximum number of courses to return.
+     * @param cursor    the opaque cursor returned with the previous page, absent for the first page.
+     * @param expand    the associations to embed in the response.
+     * @param fields    the fields to return instead of the full representation; expand is then ignored.
+     * @return a ResponseEntity with a page of courses and the cursor of the next page or an error status.
      */
     @Operation(summary = "Get all courses")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Courses Found",
                     content = { @Content(mediaType = "application/json",
-                            schema = @Schema(implementation = CourseReadOnlyDTO.class)) }),
+                            schema = @Schema(implementation = KeysetPageDTO.class)) }),
             @ApiResponse(responseCode = "400", description = "Invalid request",
                     content = @Content)})
     @GetMapping("/")
-    public ResponseEntity<List<CourseReadOnlyDTO>> getAllCourses() {
-        List<Course> courses;
+    public ResponseEntity<KeysetPageDTO<CourseReadOnlyDTO>> getAllCourses(@RequestParam(value = "limit", required = false) Integer limit, @RequestParam(value = "cursor", required = false) String cursor, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields) {
         try {
-            courses = courseService.getAllCourses();
+            int pageSize = KeysetCursor.normalizeLimit(limit);
+            if (FieldSelection.isSparse(fields) || expand == null || expand.isEmpty()) {
+                List<Map<String, Object>> rows = courseService.getCoursesPage(KeysetCursor.decode(cursor), pageSize, fields);
+                String next = null;
+                if (rows.size() == pageSize) {
+                    Map<String, Object> last = rows.get(rows.size() - 1);
+                    next = KeysetCursor.of((Long) last.get("id")).encode();
+                }
+                return new ResponseEntity<>(new KeysetPageDTO<>(Mapper.mapFieldsToReadOnly(rows, CourseReadOnlyDTO::new), next), HttpStatus.OK);
+            }
+            List<Course> courses = courseService.getCoursesPage(KeysetCursor.decode(cursor), pageSize);
             List<CourseReadOnlyDTO> readOnlyDTOS = new ArrayList<>();
             for (Course course : courses) {
-                readOnlyDTOS.add(Mapper.mapToReadOnlyDTO(course));
+                readOnlyDTOS.add(Mapper.mapToReadOnlyDTO(course, expand));
+            }
+            String next = null;
+            if (courses.size() == pageSize) {
+                Course last = courses.get(courses.size() - 1);
+                next = KeysetCursor.of(last.getId()).encode();
+            }
+            return new ResponseEntity<>(new KeysetPageDTO<>(readOnlyDTOS, next), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Enrolls a set of students in a course.
+     *
+     * @param id    the ID of the course.
+     * @param dto   the IDs of the students to enroll.
+     * @return      a ResponseEntity with the outcome for every requested student or an error status.
+     */
+    @Operation(summary = "Enroll students in a course")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Enrollments processed",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = EnrollmentResultDTO.class)) }),
+            @ApiResponse(responseCode = "400", description = "Invalid input was supplied",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Course not found",
+                    content = @Content)})
+    @PostMapping("/{id}/enrollments")
+    public ResponseEntity<List<EnrollmentResultDTO>> enrollStudents(@PathVariable("id") Long id, @Valid @RequestBody EnrollmentInsertDTO dto) {
+        try {
+            List<EnrollmentResultDTO> results = enrollmentService.enrollStudentsInCourse(id, dto.getIds());
+            return new ResponseEntity<>(results, HttpStatus.OK);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Retrieves the enrollments of a course created in a time window.
+     *
+     * @param id    the ID of the course.
+     * @param from  the start of the window, inclusive. Defaults to the start of the epoch.
+     * @param to    the end of the window, exclusive. Defaults to now.
+     * @param limit the maximum number of enrollments to return.
+     * @return      a ResponseEntity with the enrollments of the course, oldest first, or an error status.
+     */
+    @Operation(summary = "Get the enrollments of a course by time")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Enrollments Found",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = EnrollmentReadOnlyDTO.class)) }),
+            @ApiResponse(responseCode = "404", description = "Course not found",
+                    content = @Content)})
+    @GetMapping("/{id}/enrollments")
+    public ResponseEntity<List<EnrollmentReadOnlyDTO>> getEnrollments(@PathVariable("id") Long id,
+                                                                      @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                      @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            List<Enrollment> enrollments = enrollmentService.getCourseEnrollments(id,
+                    (from == null) ? LocalDateTime.of(1970, 1, 1, 0, 0) : from,
+                    (to == null) ? LocalDateTime.now() : to,
+                    KeysetCursor.normalizeLimit(limit));
+            List<EnrollmentReadOnlyDTO> readOnlyDTOS = new ArrayList<>();
+            for (Enrollment enrollment : enrollments) {
+                readOnlyDTOS.add(Mapper.mapEnrollmentToReadOnly(enrollment));
             }
             return new ResponseEntity<>(readOnlyDTOS, HttpStatus.OK);
         } catch (EntityNotFoundException e) {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
 }
@@ -0,0 +1,112 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import gr.aueb.cf.schoolapp.model.AbstractEntity;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Strong ETags of single entity representations, derived from the version of the entity.
+ * The version changes whenever a column of the entity changes, so the tag identifies
+ * representations made of those columns and of the IDs of the entities that refer to it, which
+ * are appended to the version; representations that embed associated entities are sent without one.
+ * Responses that carry a tag may be cached but must be revalidated, so clients send the tag
+ * back in {@code If-None-Match} and receive 304 Not Modified while the entity is unchanged.
+ */
+public final class EntityTags {
+    /**
+     * A version no entity has, for conditions that cannot match.
+     */
+    public static final long NO_VERSION = -1L;
+
+    private EntityTags() {}
+
+    /**
+     * Returns the ETag of the representation of an entity.
+     *
+     * @param entity    the entity
+     * @param referrers the IDs of the entities referring to it that the representation includes
+     * @return the quoted tag
+     */
+    public static String of(AbstractEntity entity, Object... referrers) {
+        StringBuilder tag = new StringBuilder("\"").append(entity.getVersion());
+        for (Object referrer : referrers) {
+            tag.append('-').append(referrer == null ? "" : referrer);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Checks an {@code If-None-Match} header against the current tag, with the weak comparison
+     * the header calls for.
+     *
+     * @param ifNoneMatch the header value, or null
+     * @param eTag        the current tag
+     * @return true if the client already has the current representation
+     */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the version an {@code If-Match} header requires, with the strong comparison the header calls for.
+     * Only the version of the tag is compared, as changes to the entity are what the condition guards against.
+     *
+     * @param ifMatch the header value, or null
+     * @return null if any version is accepted, the required version, or {@link #NO_VERSION} if the header
+     *         cannot match, as with weak or foreign tags; a list of several tags is not supported and cannot match
+     */
+    public static Long requiredVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) return null;
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) return NO_VERSION;
+        try {
+            String version = tag.substring(1, tag.length() - 1);
+            int end = version.indexOf('-');
+            return Long.valueOf(end < 0 ? version : version.substring(0, end));
+        } catch (NumberFormatException e) {
+            return NO_VERSION;
+        }
+    }
+
+    /**
+     * Builds the response to a conditional GET of an entity: 304 Not Modified if the client has
+     * the current representation, otherwise null, to be replaced with a full response through {@link #ok}.
+     *
+     * @param eTag        the tag of the current representation
+     * @param ifNoneMatch the {@code If-None-Match} header value, or null
+     * @return the 304 response, or null
+     */
+    public static <T> ResponseEntity<T> notModified(String eTag, String ifNoneMatch) {
+        if (!matches(ifNoneMatch, eTag)) {
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(revalidate()).build();
+    }
+
+    /**
+     * Builds a 200 response whose body is the representation of an entity, with its tag.
+     *
+     * @param eTag the tag of the representation
+     * @param body the representation
+     * @return the response
+     */
+    public static <T> ResponseEntity<T> ok(String eTag, T body) {
+        return ResponseEntity.ok().eTag(eTag).cacheControl(revalidate()).body(body);
+    }
+
+    private static CacheControl revalidate() {
+        return CacheControl.noCache().cachePrivate();
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
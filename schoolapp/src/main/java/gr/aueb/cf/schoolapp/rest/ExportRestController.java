@@ -0,0 +1,126 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import gr.aueb.cf.schoolapp.service.IExportService;
+import gr.aueb.cf.schoolapp.service.util.FileFormat;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * REST Controller for exporting students, teachers and enrollments.
+ * Rows are written to the response while they are read from the database, so an export
+ * of any size is sent without being held in memory. The output is gzip-compressed
+ * for clients that accept it.
+ */
+@RestController
+@RequestMapping("/api/exports")
+@RequiredArgsConstructor
+public class ExportRestController {
+    private final IExportService exportService;
+
+    /**
+     * Exports every student.
+     *
+     * @param format the output format, ndjson or csv.
+     * @param request the HTTP request, to check whether the client accepts gzip.
+     * @param response the HTTP response the rows are written to.
+     * @throws IOException if the response cannot be written.
+     */
+    @Operation(summary = "Export all students as NDJSON or CSV")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Students exported",
+                    content = { @Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv") }),
+            @ApiResponse(responseCode = "400", description = "Unknown format",
+                    content = @Content)})
+    @GetMapping("/students")
+    public void exportStudents(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        export("students", format, exportService::exportStudents, request, response);
+    }
+
+    /**
+     * Exports every teacher.
+     *
+     * @param format the output format, ndjson or csv.
+     * @param request the HTTP request, to check whether the client accepts gzip.
+     * @param response the HTTP response the rows are written to.
+     * @throws IOException if the response cannot be written.
+     */
+    @Operation(summary = "Export all teachers as NDJSON or CSV")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Teachers exported",
+                    content = { @Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv") }),
+            @ApiResponse(responseCode = "400", description = "Unknown format",
+                    content = @Content)})
+    @GetMapping("/teachers")
+    public void exportTeachers(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        export("teachers", format, exportService::exportTeachers, request, response);
+    }
+
+    /**
+     * Exports every enrollment.
+     *
+     * @param format the output format, ndjson or csv.
+     * @param request the HTTP request, to check whether the client accepts gzip.
+     * @param response the HTTP response the rows are written to.
+     * @throws IOException if the response cannot be written.
+     */
+    @Operation(summary = "Export all enrollments as NDJSON or CSV")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Enrollments exported",
+                    content = { @Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv") }),
+            @ApiResponse(responseCode = "400", description = "Unknown format",
+                    content = @Content)})
+    @GetMapping("/enrollments")
+    public void exportEnrollments(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                  HttpServletRequest request, HttpServletResponse response) throws IOException {
+        export("enrollments", format, exportService::exportEnrollments, request, response);
+    }
+
+    private void export(String name, String format, Export export,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FileFormat fileFormat;
+        try {
+            fileFormat = FileFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        response.setContentType(fileFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + "." + fileFormat.getExtension() + "\"");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (!acceptsGzip(request)) {
+            export.write(fileFormat, response.getOutputStream());
+            return;
+        }
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        GZIPOutputStream gzip = new GZIPOutputStream(response.getOutputStream(), 8192);
+        export.write(fileFormat, gzip);
+        gzip.finish();
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+
+    @FunctionalInterface
+    private interface Export {
+        long write(FileFormat format, OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,180 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import gr.aueb.cf.schoolapp.dto.ImportJobReadOnlyDTO;
+import gr.aueb.cf.schoolapp.mapper.Mapper;
+import gr.aueb.cf.schoolapp.model.ImportJob;
+import gr.aueb.cf.schoolapp.model.ImportType;
+import gr.aueb.cf.schoolapp.service.IImportService;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.ImportNotResumableException;
+import gr.aueb.cf.schoolapp.service.util.FileFormat;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * REST Controller for bulk imports of students and teachers.
+ * The file is the request body, as NDJSON or CSV with a header, optionally gzip-compressed.
+ * It is read while it is uploaded and imported in chunks; the response describes the job,
+ * whose progress can also be followed from another request while it runs.
+ */
+@RestController
+@RequestMapping("/api/imports")
+@RequiredArgsConstructor
+public class ImportRestController {
+    private static final int MAX_ERRORS = 1000;
+
+    private final IImportService importService;
+
+    /**
+     * Imports students, registering a user for each.
+     *
+     * @param format the file format, ndjson or csv.
+     * @param request the HTTP request whose body is the file.
+     * @return a ResponseEntity with the import job or an error status.
+     */
+    @Operation(summary = "Import students from an NDJSON or CSV file")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Import ran; its status tells whether it completed",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ImportJobReadOnlyDTO.class)) }),
+            @ApiResponse(responseCode = "400", description = "Unknown format or unreadable body",
+                    content = @Content)})
+    @PostMapping(value = "/students", consumes = "*/*")
+    public ResponseEntity<ImportJobReadOnlyDTO> importStudents(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                                               HttpServletRequest request) {
+        return startImport(ImportType.STUDENTS, format, request);
+    }
+
+    /**
+     * Imports teachers, registering a user for each.
+     *
+     * @param format the file format, ndjson or csv.
+     * @param request the HTTP request whose body is the file.
+     * @return a ResponseEntity with the import job or an error status.
+     */
+    @Operation(summary = "Import teachers from an NDJSON or CSV file")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Import ran; its status tells whether it completed",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ImportJobReadOnlyDTO.class)) }),
+            @ApiResponse(responseCode = "400", description = "Unknown format or unreadable body",
+                    content = @Content)})
+    @PostMapping(value = "/teachers", consumes = "*/*")
+    public ResponseEntity<ImportJobReadOnlyDTO> importTeachers(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                                               HttpServletRequest request) {
+        return startImport(ImportType.TEACHERS, format, request);
+    }
+
+    /**
+     * Resumes a failed or abandoned import with the same file, after its last committed chunk.
+     *
+     * @param id the ID of the import job.
+     * @param format the file format, ndjson or csv.
+     * @param request the HTTP request whose body is the file, from its start.
+     * @return a ResponseEntity with the import job or an error status.
+     */
+    @Operation(summary = "Resume an import from its last committed chunk")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import ran; its status tells whether it completed",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ImportJobReadOnlyDTO.class)) }),
+            @ApiResponse(responseCode = "400", description = "Unknown format or unreadable body",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Import not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Import is running or has completed",
+                    content = @Content)})
+    @PostMapping(value = "/{id}/resume", consumes = "*/*")
+    public ResponseEntity<ImportJobReadOnlyDTO> resumeImport(@PathVariable("id") Long id,
+                                                             @RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                                             HttpServletRequest request) {
+        FileFormat fileFormat = parseFormat(format);
+        if (fileFormat == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return ResponseEntity.ok(run(id, fileFormat, request));
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (ImportNotResumableException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (IOException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Retrieves an import job with its progress and its first rejected rows.
+     *
+     * @param id the ID of the import job.
+     * @return a ResponseEntity with the import job or an error status.
+     */
+    @Operation(summary = "Get the progress and rejected rows of an import")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import found",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ImportJobReadOnlyDTO.class)) }),
+            @ApiResponse(responseCode = "404", description = "Import not found",
+                    content = @Content)})
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobReadOnlyDTO> getImport(@PathVariable("id") Long id) {
+        try {
+            ImportJob job = importService.getImport(id);
+            return ResponseEntity.ok(Mapper.mapImportJobToReadOnly(job, importService.getImportErrors(id, MAX_ERRORS)));
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private ResponseEntity<ImportJobReadOnlyDTO> startImport(ImportType type, String format, HttpServletRequest request) {
+        FileFormat fileFormat = parseFormat(format);
+        if (fileFormat == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        ImportJob job = importService.createImport(type);
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/imports/{id}")
+                .buildAndExpand(job.getId())
+                .toUri();
+        try {
+            return ResponseEntity.created(location).body(run(job.getId(), fileFormat, request));
+        } catch (EntityNotFoundException | ImportNotResumableException | IOException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private ImportJobReadOnlyDTO run(Long id, FileFormat format, HttpServletRequest request)
+            throws EntityNotFoundException, ImportNotResumableException, IOException {
+        InputStream in = request.getInputStream();
+        String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding != null && contentEncoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+            in = new GZIPInputStream(in);
+        }
+        ImportJob job = importService.runImport(id, format, in);
+        return Mapper.mapImportJobToReadOnly(job, importService.getImportErrors(id, MAX_ERRORS));
+    }
+
+    private static FileFormat parseFormat(String format) {
+        try {
+            return FileFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,20 +1,30 @@
 package gr.aueb.cf.schoolapp.rest;
 
 import gr.aueb.cf.schoolapp.authentication.util.JwtUtil;
+import gr.aueb.cf.schoolapp.authentication.util.LoginThrottle;
+import gr.aueb.cf.schoolapp.authentication.util.VerifiedToken;
 import gr.aueb.cf.schoolapp.dto.*;
 import gr.aueb.cf.schoolapp.mapper.Mapper;
 import gr.aueb.cf.schoolapp.model.User;
+import gr.aueb.cf.schoolapp.service.IRefreshTokenService;
+import gr.aueb.cf.schoolapp.service.ITokenRevocationService;
 import gr.aueb.cf.schoolapp.service.IUserService;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.HashingOverloadedException;
+import gr.aueb.cf.schoolapp.service.exceptions.InvalidRefreshTokenException;
+import gr.aueb.cf.schoolapp.service.util.TokenRotation;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -27,13 +37,17 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class LoginRestController {
     private final IUserService userService;
+    private final IRefreshTokenService refreshTokenService;
+    private final ITokenRevocationService tokenRevocationService;
     private final JwtUtil jwtUtil;
+    private final LoginThrottle loginThrottle;
 
     /**
      * Authenticates a user and returns a JWT token if successful.
      *
      * @param dto the user login DTO containing the username and password.
-     * @return a ResponseEntity containing the JWT token and user details, or an error status.
+     * @param request the request, whose client address is throttled along with the failed attempts on the username.
+     * @return a ResponseEntity containing the JWT token, a refresh token and user details, or an error status.
      */
     @Operation(summary = "Login")
     @ApiResponses(value = {
@@ -44,27 +58,102 @@ public class LoginRestController {
                     content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found",
                     content = @Content),
+            @ApiResponse(responseCode = "429", description = "Too many login attempts",
+                    content = @Content),
             @ApiResponse(responseCode = "503", description = "Service Unavailable",
                     content = @Content)})
     @PostMapping("/login/")
-    public ResponseEntity<?> loginUser(@Valid @RequestBody UserLoginDTO dto) {
+    public ResponseEntity<?> loginUser(@Valid @RequestBody UserLoginDTO dto, HttpServletRequest request) {
+        long retryAfter = loginThrottle.tryAcquire(request.getRemoteAddr(), dto.getUsername());
+        if (retryAfter > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .build();
+        }
         try {
             User user = userService.getByUsername(dto.getUsername());
             if (user.getUsername() == null){
                 throw new EntityNotFoundException(User.class, user.getId());
             }
             if (userService.checkPassword(user, dto.getPassword())) {
-                String jwt = jwtUtil.generateToken(dto.getUsername(), userService.getByUsername(dto.getUsername()).getRole());
-                System.out.println("Generated JWT: " + jwt);
+                String jwt = jwtUtil.generateToken(user);
+                String refreshToken = refreshTokenService.issue(user);
                 UserReadOnlyDTO readOnlyDTO = Mapper.mapUserToReadOnly(user);
                 return ResponseEntity.ok()
                         .header("Authorization", "Bearer " + jwt)
-                        .body(Map.of("access_token", jwt, "user", readOnlyDTO));
+                        .body(Map.of("access_token", jwt, "refresh_token", refreshToken, "user", readOnlyDTO));
             } else {
+                loginThrottle.recordFailure(dto.getUsername());
                 return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
             }
-        } catch (EntityNotFoundException e) {
+        } catch (EntityNotFoundException | UsernameNotFoundException e) {
+            loginThrottle.recordFailure(dto.getUsername());
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (HashingOverloadedException e) {
+            return RestExceptionHandler.serviceUnavailable(e);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * Exchanges a refresh token for a new JWT token and a new refresh token.
+     * The presented refresh token is used up; presenting it again revokes every token descended from the same login.
+     *
+     * @param dto the refresh token DTO.
+     * @return a ResponseEntity containing the JWT token, the new refresh token and user details, or an error status.
+     */
+    @Operation(summary = "Refresh an access token")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Token refreshed",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UserReadOnlyDTO.class)) }),
+            @ApiResponse(responseCode = "400", description = "Invalid input was supplied",
+                    content = @Content),
+            @ApiResponse(responseCode = "401", description = "Refresh token invalid, expired or reused",
+                    content = @Content)})
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshTokenDTO dto) {
+        try {
+            TokenRotation rotation = refreshTokenService.rotate(dto.getRefreshToken());
+            String jwt = jwtUtil.generateToken(rotation.getUser());
+            UserReadOnlyDTO readOnlyDTO = Mapper.mapUserToReadOnly(rotation.getUser());
+            return ResponseEntity.ok()
+                    .header("Authorization", "Bearer " + jwt)
+                    .body(Map.of("access_token", jwt, "refresh_token", rotation.getRefreshToken(), "user", readOnlyDTO));
+        } catch (InvalidRefreshTokenException e) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+    }
+
+    /**
+     * Logs out the caller: the JWT token of the request is revoked until it expires,
+     * and so is the family of the refresh token, if one is given.
+     *
+     * @param dto the refresh token DTO, optional.
+     * @param request the request, carrying the verified JWT token.
+     * @return a ResponseEntity with no content, or an error status.
+     */
+    @Operation(summary = "Logout")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Logged out",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Token cannot be revoked",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Service Unavailable",
+                    content = @Content)})
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logoutUser(@RequestBody(required = false) RefreshTokenDTO dto, HttpServletRequest request) {
+        VerifiedToken token = (VerifiedToken) request.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE);
+        if (token == null || token.getTokenId() == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            tokenRevocationService.revokeToken(token);
+            if (dto != null && dto.getRefreshToken() != null) {
+                refreshTokenService.revoke(dto.getRefreshToken(), token.getUserId());
+            }
+            return ResponseEntity.noContent().build();
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
         }
@@ -6,9 +6,11 @@ import gr.aueb.cf.schoolapp.mapper.Mapper;
 import gr.aueb.cf.schoolapp.model.Student;
 import gr.aueb.cf.schoolapp.model.Teacher;
 import gr.aueb.cf.schoolapp.model.User;
+import gr.aueb.cf.schoolapp.service.IRefreshTokenService;
 import gr.aueb.cf.schoolapp.service.IStudentService;
 import gr.aueb.cf.schoolapp.service.ITeacherService;
 import gr.aueb.cf.schoolapp.service.IUserService;
+import gr.aueb.cf.schoolapp.service.exceptions.HashingOverloadedException;
 import gr.aueb.cf.schoolapp.validator.RegisterStudentValidator;
 import gr.aueb.cf.schoolapp.validator.TeacherRegisterValidator;
 import gr.aueb.cf.schoolapp.validator.UserInsertValidator;
@@ -38,6 +40,7 @@ import java.util.Map;
 @RequestMapping("/api")
 @RequiredArgsConstructor
 public class RegisterRestController {
+    private final IRefreshTokenService refreshTokenService;
     private final JwtUtil jwtUtil;
     private final IUserService userService;
     private final TeacherRegisterValidator teacherRegisterValidator;
@@ -75,10 +78,13 @@ public class RegisterRestController {
                     .path("/{id}")
                     .buildAndExpand(readOnlyDTO.getId())
                     .toUri();
-            String jwt = jwtUtil.generateToken(dto.getUsername(), userService.getByUsername(dto.getUsername()).getRole());
+            String jwt = jwtUtil.generateToken(user);
+            String refreshToken = refreshTokenService.issue(user);
             return ResponseEntity.created(location)
                     .header("Authorization", "Bearer " + jwt)
-                    .body(Map.of("access_token", jwt, "user", readOnlyDTO));
+                    .body(Map.of("access_token", jwt, "refresh_token", refreshToken, "user", readOnlyDTO));
+        } catch (HashingOverloadedException e) {
+            return RestExceptionHandler.serviceUnavailable(e);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
         }
@@ -113,12 +119,15 @@ public class RegisterRestController {
                     .path("/{id}")
                     .buildAndExpand(readOnlyDTO.getId())
                     .toUri();
-            String jwt = jwtUtil.generateToken(dto.getUsername(), userService.getByUsername(dto.getUsername()).getRole());
+            String jwt = jwtUtil.generateToken(teacher.getUser());
+            String refreshToken = refreshTokenService.issue(teacher.getUser());
             return ResponseEntity.created(location)
                     .header("Authorization", "Bearer " + jwt)
-                    .body(Map.of("access_token", jwt, "user", readOnlyDTO));
+                    .body(Map.of("access_token", jwt, "refresh_token", refreshToken, "user", readOnlyDTO));
 
 
+        } catch (HashingOverloadedException e) {
+            return RestExceptionHandler.serviceUnavailable(e);
         } catch (Exception e) {
             System.out.println(e.getMessage());
             return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
@@ -154,11 +163,14 @@ public class RegisterRestController {
                     .path("/{id}")
                     .buildAndExpand(readOnlyDTO.getId())
                     .toUri();
-            String jwt = jwtUtil.generateToken(dto.getUsername(), userService.getByUsername(dto.getUsername()).getRole());
+            String jwt = jwtUtil.generateToken(student.getUser());
+            String refreshToken = refreshTokenService.issue(student.getUser());
             return ResponseEntity.created(location)
                     .header("Authorization", "Bearer " + jwt)
-                    .body(Map.of("access_token", jwt, "user", readOnlyDTO));
+                    .body(Map.of("access_token", jwt, "refresh_token", refreshToken, "user", readOnlyDTO));
 
+        } catch (HashingOverloadedException e) {
+            return RestExceptionHandler.serviceUnavailable(e);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
         }
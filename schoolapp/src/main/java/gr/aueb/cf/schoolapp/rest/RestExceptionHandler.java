@@ -0,0 +1,55 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import gr.aueb.cf.schoolapp.service.exceptions.HashingOverloadedException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps the exceptions that any endpoint may raise to responses.
+ */
+@RestControllerAdvice
+public class RestExceptionHandler {
+
+    /**
+     * Answers a request rejected because password hashing is overloaded.
+     *
+     * @param e the exception raised by the hashing service.
+     * @return a 503 response with a Retry-After header.
+     */
+    @ExceptionHandler(HashingOverloadedException.class)
+    public ResponseEntity<Void> handleHashingOverloaded(HashingOverloadedException e) {
+        return serviceUnavailable(e);
+    }
+
+    /**
+     * Answers a change that lost a race with a concurrent change of the same entity, detected when
+     * the change was written. The entity was unchanged when it was read, so an {@code If-Match}
+     * condition held at first but no longer does.
+     *
+     * @param e       the exception raised on writing the stale version.
+     * @param request the HTTP request.
+     * @return a 412 response if the request was conditional, otherwise a 409 response.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> handleOptimisticLockingFailure(OptimisticLockingFailureException e, HttpServletRequest request) {
+        return new ResponseEntity<>(request.getHeader(HttpHeaders.IF_MATCH) != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Builds the response to a request rejected because password hashing is overloaded,
+     * for endpoints that catch the exception themselves.
+     *
+     * @param e the exception raised by the hashing service.
+     * @return a 503 response with a Retry-After header.
+     */
+    public static <T> ResponseEntity<T> serviceUnavailable(HashingOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .build();
+    }
+}
@@ -23,9 +23,9 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * REST Controller for managing specialities.
@@ -139,6 +139,7 @@ public class SpecialityRestController {
      * Retrieves a speciality by id.
      *
      * @param id the id of the speciality to retrieve.
+     * @param fields the fields to return instead of the full representation.
      * @return a ResponseEntity containing the retrieved speciality details, or an error status.
      */
     @Operation(summary = "Get a speciality by id")
@@ -147,21 +148,24 @@ public class SpecialityRestController {
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = SpecialityReadOnlyDTO.class)) }),
             @ApiResponse(responseCode = "404", description = "Speciality not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field requested",
                     content = @Content)})
     @GetMapping("/{id}")
-    public ResponseEntity<SpecialityReadOnlyDTO> getSpeciality(@PathVariable("id") Long id) {
+    public ResponseEntity<SpecialityReadOnlyDTO> getSpeciality(@PathVariable("id") Long id, @RequestParam(value = "fields", required = false) Set<String> fields) {
         try {
-            Speciality speciality = specialityService.getSpecialityById(id);
-            SpecialityReadOnlyDTO dto = Mapper.mapSpecialityToReadOnly(speciality);
-            return ResponseEntity.ok(dto);
+            return ResponseEntity.ok(Mapper.mapFieldsToReadOnly(specialityService.getSpecialityById(id, fields), SpecialityReadOnlyDTO::new));
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 
     /**
      * Retrieves all specialities.
      *
+     * @param fields the fields to return instead of the full representation.
      * @return a ResponseEntity containing a list of all specialities, or an error status.
      */
     @Operation(summary = "Get all specialities")
@@ -172,17 +176,13 @@ public class SpecialityRestController {
             @ApiResponse(responseCode = "400", description = "Invalid request",
                     content = @Content)})
     @GetMapping("/")
-    public ResponseEntity<List<SpecialityReadOnlyDTO>> getAllSpecialities() {
-        List<Speciality> specialities;
+    public ResponseEntity<List<SpecialityReadOnlyDTO>> getAllSpecialities(@RequestParam(value = "fields", required = false) Set<String> fields) {
         try {
-            specialities = specialityService.getAllSpecialities();
-            List<SpecialityReadOnlyDTO> readOnlyDTOS = new ArrayList<>();
-            for (Speciality speciality : specialities) {
-                readOnlyDTOS.add(Mapper.mapSpecialityToReadOnly(speciality));
-            }
-            return new ResponseEntity<>(readOnlyDTOS, HttpStatus.OK);
+            return new ResponseEntity<>(Mapper.mapFieldsToReadOnly(specialityService.getAllSpecialities(fields), SpecialityReadOnlyDTO::new), HttpStatus.OK);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 }
@@ -3,10 +3,15 @@ package gr.aueb.cf.schoolapp.rest;
 import gr.aueb.cf.schoolapp.dto.*;
 import gr.aueb.cf.schoolapp.mapper.Mapper;
 import gr.aueb.cf.schoolapp.model.Course;
+import gr.aueb.cf.schoolapp.model.Enrollment;
 import gr.aueb.cf.schoolapp.model.Gender;
 import gr.aueb.cf.schoolapp.model.Student;
+import gr.aueb.cf.schoolapp.service.IEnrollmentService;
 import gr.aueb.cf.schoolapp.service.IStudentService;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityVersionConflictException;
+import gr.aueb.cf.schoolapp.service.util.FieldSelection;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 import gr.aueb.cf.schoolapp.validator.StudentInsertValidator;
 import gr.aueb.cf.schoolapp.validator.StudentUpdateValidator;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,16 +21,22 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * REST Controller for managing Student entities.
@@ -35,6 +46,7 @@ import java.util.Objects;
 @RequiredArgsConstructor
 public class StudentRestController {
     private final IStudentService studentService;
+    private final IEnrollmentService enrollmentService;
     private final StudentInsertValidator insertValidator;
     private final StudentUpdateValidator updateValidator;
 
@@ -79,6 +91,7 @@ public class StudentRestController {
      * @param id    the ID of the student to update.
      * @param dto   the student update DTO containing the updated details of the student.
      * @param bindingResult the binding result for validation errors.
+     * @param ifMatch the ETag the student must still have, if any.
      * @return  a ResponseEntity with the updated student or an error status.
      */
     @Operation(summary = "Update a student")
@@ -91,9 +104,13 @@ public class StudentRestController {
             @ApiResponse(responseCode = "400", description = "Invalid input was supplied",
                     content = @Content),
             @ApiResponse(responseCode = "404", description = "Student not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "Student changed since the version in If-Match",
                     content = @Content) })
+    @PreAuthorize("@ownership.canUpdateStudent(#id, #dto)")
     @PutMapping("/{id}")
-    public ResponseEntity<StudentReadOnlyDTO> updateStudent(@PathVariable("id") Long id, @Valid @RequestBody StudentUpdateDTO dto, BindingResult bindingResult) {
+    public ResponseEntity<StudentReadOnlyDTO> updateStudent(@PathVariable("id") Long id, @Valid @RequestBody StudentUpdateDTO dto, BindingResult bindingResult,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (!Objects.equals(id, dto.getId())) {
             return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
         }
@@ -102,11 +119,13 @@ public class StudentRestController {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
         try {
-            Student student = studentService.updateStudent(dto);
+            Student student = studentService.updateStudent(dto, EntityTags.requiredVersion(ifMatch));
             StudentReadOnlyDTO readOnlyDTO = Mapper.mapStudentToReadOnly(student);
-            return new ResponseEntity<>(readOnlyDTO, HttpStatus.OK);
+            return EntityTags.ok(EntityTags.of(student), readOnlyDTO);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (EntityVersionConflictException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
         }
     }
 
@@ -114,6 +133,7 @@ public class StudentRestController {
      * Deletes an existing student by its ID.
      *
      * @param id    the ID of the student to delete.
+     * @param ifMatch the ETag the student must still have, if any.
      * @return      a ResponseEntity with the deleted student or an error status.
      */
     @Operation(summary = "Delete a student by id")
@@ -122,16 +142,20 @@ public class StudentRestController {
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = StudentReadOnlyDTO.class)) }),
             @ApiResponse(responseCode = "404", description = "Student not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "Student changed since the version in If-Match",
                     content = @Content)})
+    @PreAuthorize("@ownership.isStudent(#id)")
     @DeleteMapping("/{id}")
-    public ResponseEntity<StudentReadOnlyDTO> deleteStudent(@PathVariable("id") Long id) {
+    public ResponseEntity<StudentReadOnlyDTO> deleteStudent(@PathVariable("id") Long id,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Student student = studentService.getStudentById(id);
-            StudentReadOnlyDTO readOnlyDTO = Mapper.mapStudentToReadOnly(student);
-            studentService.deleteStudent(id);
-            return ResponseEntity.ok(readOnlyDTO);
+            Student student = studentService.deleteStudent(id, EntityTags.requiredVersion(ifMatch));
+            return ResponseEntity.ok(Mapper.mapStudentToReadOnly(student));
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (EntityVersionConflictException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
         }
     }
 
@@ -139,6 +163,8 @@ public class StudentRestController {
      *  Retrieves a list o students by their lastname starting with the specified string.
      *
      * @param lastname  the starting substring of lastnames to search for.
+     * @param expand    the associations to embed in the response.
+     * @param fields    the fields to return instead of the full representation; expand is then ignored.
      * @return      a ResponseEntity with a list of the students or an error status.
      */
     @Operation(summary = "Get students by their lastname starting with initials")
@@ -149,17 +175,22 @@ public class StudentRestController {
             @ApiResponse(responseCode = "400", description = "Invalid lastname supplied",
                     content = @Content)})
     @GetMapping("/by-lastname")
-    public ResponseEntity<List<StudentReadOnlyDTO>> getStudentByLastname(@RequestParam("lastname") String lastname) {
+    public ResponseEntity<List<StudentReadOnlyDTO>> getStudentByLastname(@RequestParam("lastname") String lastname, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields) {
         List<Student> students;
         try {
+            if (FieldSelection.isSparse(fields)) {
+                return new ResponseEntity<>(Mapper.mapFieldsToReadOnly(studentService.getStudentByLastname(lastname, fields), StudentReadOnlyDTO::new), HttpStatus.OK);
+            }
             students = studentService.getStudentByLastname(lastname);
             List<StudentReadOnlyDTO> readOnlyDTOS = new ArrayList<>();
             for (Student student : students) {
-                readOnlyDTOS.add(Mapper.mapStudentToReadOnly(student));
+                readOnlyDTOS.add(Mapper.mapStudentToReadOnly(student, expand));
             }
             return new ResponseEntity<>(readOnlyDTOS, HttpStatus.OK);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 
@@ -167,6 +198,9 @@ public class StudentRestController {
      * Retrieves a student by its ID.
      *
      * @param id    the ID of the student to retrieve.
+     * @param expand the associations to embed in the response.
+     * @param fields the fields to return instead of the full representation; expand is then ignored.
+     * @param ifNoneMatch the ETags of the representations the client has, if any.
      * @return      a ResponseEntity with the retrieved student or an error status.
      */
     @Operation(summary = "Get a student by id")
@@ -174,16 +208,34 @@ public class StudentRestController {
             @ApiResponse(responseCode = "200", description = "Student Found",
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = StudentReadOnlyDTO.class)) }),
+            @ApiResponse(responseCode = "304", description = "Student unchanged since the version in If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Student not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field requested",
                     content = @Content)})
+    @PreAuthorize("@ownership.isStudent(#id)")
     @GetMapping("/{id}")
-    public ResponseEntity<StudentReadOnlyDTO> getStudent(@PathVariable("id") Long id) {
+    public ResponseEntity<StudentReadOnlyDTO> getStudent(@PathVariable("id") Long id, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields,
+                                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            if (FieldSelection.isSparse(fields)) {
+                return ResponseEntity.ok(Mapper.mapFieldsToReadOnly(studentService.getStudentById(id, fields), StudentReadOnlyDTO::new));
+            }
+            if (expand != null && !expand.isEmpty()) {
+                return ResponseEntity.ok(Mapper.mapStudentToReadOnly(studentService.getStudentDetailById(id), expand));
+            }
             Student student = studentService.getStudentById(id);
-            StudentReadOnlyDTO dto = Mapper.mapStudentToReadOnly(student);
-            return ResponseEntity.ok(dto);
+            String eTag = EntityTags.of(student);
+            ResponseEntity<StudentReadOnlyDTO> notModified = EntityTags.notModified(eTag, ifNoneMatch);
+            if (notModified != null) {
+                return notModified;
+            }
+            return EntityTags.ok(eTag, Mapper.mapStudentToReadOnly(student));
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 
@@ -191,6 +243,8 @@ public class StudentRestController {
      * Retrieves a list o students by their gender.
      *
      * @param gender    the gender of the students to retrieve.
+     * @param expand    the associations to embed in the response.
+     * @param fields    the fields to return instead of the full representation; expand is then ignored.
      * @return          a ResponseEntity with a list of the students or an error status.
      */
     @Operation(summary = "Get students by their gender")
@@ -201,43 +255,66 @@ public class StudentRestController {
             @ApiResponse(responseCode = "400", description = "Invalid gender supplied",
                     content = @Content)})
     @GetMapping("/by-gender")
-    public ResponseEntity<List<StudentReadOnlyDTO>> getStudentByGender(@RequestParam("gender") Gender gender) {
+    public ResponseEntity<List<StudentReadOnlyDTO>> getStudentByGender(@RequestParam("gender") Gender gender, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields) {
         List<Student> students;
         try {
+            if (FieldSelection.isSparse(fields)) {
+                return new ResponseEntity<>(Mapper.mapFieldsToReadOnly(studentService.getStudentByGender(gender, fields), StudentReadOnlyDTO::new), HttpStatus.OK);
+            }
             students = studentService.getStudentByGender(gender);
             List<StudentReadOnlyDTO> readOnlyDTOS = new ArrayList<>();
             for (Student student : students) {
-                readOnlyDTOS.add(Mapper.mapStudentToReadOnly(student));
+                readOnlyDTOS.add(Mapper.mapStudentToReadOnly(student, expand));
             }
             return new ResponseEntity<>(readOnlyDTOS, HttpStatus.OK);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 
     /**
-     * Retrieves all students.
+     * Retrieves a page of students ordered by lastname and ID.
      *
-     * @return a ResponseEntity with a list of all students or an error status.
+     * @param limit     the maximum number of students to return.
+     * @param cursor    the opaque cursor returned with the previous page, absent for the first page.
+     * @param expand    the associations to embed in the response.
+     * @param fields    the fields to return instead of the full representation; expand is then ignored.
+     * @return a ResponseEntity with a page of students and the cursor of the next page or an error status.
      */
     @Operation(summary = "Get all students")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Students Found",
                     content = { @Content(mediaType = "application/json",
-                            schema = @Schema(implementation = StudentReadOnlyDTO.class)) }),
+                            schema = @Schema(implementation = KeysetPageDTO.class)) }),
             @ApiResponse(responseCode = "400", description = "Invalid request",
                     content = @Content)})
     @GetMapping("/")
-    public ResponseEntity<List<StudentReadOnlyDTO>> getAllStudents() {
-        List<Student> students;
+    public ResponseEntity<KeysetPageDTO<StudentReadOnlyDTO>> getAllStudents(@RequestParam(value = "limit", required = false) Integer limit, @RequestParam(value = "cursor", required = false) String cursor, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields) {
         try {
-            students = studentService.getAllStudents();
+            int pageSize = KeysetCursor.normalizeLimit(limit);
+            if (FieldSelection.isSparse(fields)) {
+                List<Map<String, Object>> rows = studentService.getStudentsPage(KeysetCursor.decodeKeyed(cursor), pageSize, fields);
+                String next = null;
+                if (rows.size() == pageSize) {
+                    Map<String, Object> last = rows.get(rows.size() - 1);
+                    next = KeysetCursor.of((String) last.get("lastname"), (Long) last.get("id")).encode();
+                }
+                return new ResponseEntity<>(new KeysetPageDTO<>(Mapper.mapFieldsToReadOnly(rows, StudentReadOnlyDTO::new), next), HttpStatus.OK);
+            }
+            List<Student> students = studentService.getStudentsPage(KeysetCursor.decodeKeyed(cursor), pageSize);
             List<StudentReadOnlyDTO> readOnlyDTOS = new ArrayList<>();
             for (Student student : students) {
-                readOnlyDTOS.add(Mapper.mapStudentToReadOnly(student));
+                readOnlyDTOS.add(Mapper.mapStudentToReadOnly(student, expand));
             }
-            return new ResponseEntity<>(readOnlyDTOS, HttpStatus.OK);
-        } catch (EntityNotFoundException e) {
+            String next = null;
+            if (students.size() == pageSize) {
+                Student last = students.get(students.size() - 1);
+                next = KeysetCursor.of(last.getLastname(), last.getId()).encode();
+            }
+            return new ResponseEntity<>(new KeysetPageDTO<>(readOnlyDTOS, next), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
@@ -256,10 +333,11 @@ public class StudentRestController {
                             schema = @Schema(implementation = StudentReadOnlyDTO.class)) }),
             @ApiResponse(responseCode = "404", description = "Student or Course not found",
                     content = @Content) })
+    @PreAuthorize("@ownership.isStudent(#studentId)")
     @PutMapping("/{studentId}/courses/{courseId}")
     public ResponseEntity<StudentReadOnlyDTO> addCourseToStudent(@PathVariable("studentId") Long studentId, @PathVariable("courseId") Long courseId) {
         try {
-            studentService.addCourseToStudent(studentId, courseId);
+            enrollmentService.enroll(studentId, courseId);
             Student student = studentService.getStudentById(studentId);
             StudentReadOnlyDTO readOnlyDTO = Mapper.mapStudentToReadOnly(student);
             return new ResponseEntity<>(readOnlyDTO, HttpStatus.OK);
@@ -282,10 +360,11 @@ public class StudentRestController {
                             schema = @Schema(implementation = StudentReadOnlyDTO.class)) }),
             @ApiResponse(responseCode = "404", description = "Student or Course not found",
                     content = @Content) })
+    @PreAuthorize("@ownership.isStudent(#studentId)")
     @DeleteMapping("/{studentId}/courses/{courseId}")
     public ResponseEntity<StudentReadOnlyDTO> removeCourseFromStudent(@PathVariable("studentId") Long studentId, @PathVariable("courseId") Long courseId) {
         try {
-            studentService.removeCourseFromStudent(studentId, courseId);
+            enrollmentService.unenroll(studentId, courseId);
             Student student = studentService.getStudentById(studentId);
             StudentReadOnlyDTO readOnlyDTO = Mapper.mapStudentToReadOnly(student);
             return new ResponseEntity<>(readOnlyDTO, HttpStatus.OK);
@@ -298,6 +377,8 @@ public class StudentRestController {
      *  Retrieves all courses from a student.
      *
      * @param id    The ID of the student.
+     * @param expand the associations to embed in the response.
+     * @param fields the fields to return instead of the full representation; expand is then ignored.
      * @return      a ResponseEntity with a list of all courses of a specified student or an error status.
      */
     @Operation(summary = "Get all courses of a student")
@@ -306,18 +387,90 @@ public class StudentRestController {
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = CourseReadOnlyDTO.class)) }),
             @ApiResponse(responseCode = "404", description = "Student not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field requested",
                     content = @Content)})
+    @PreAuthorize("@ownership.isStudent(#id)")
     @GetMapping("/{id}/courses")
-    public ResponseEntity<List<CourseReadOnlyDTO>> getStudentCourses(@PathVariable("id") Long id) {
+    public ResponseEntity<List<CourseReadOnlyDTO>> getStudentCourses(@PathVariable("id") Long id, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields) {
         try {
+            if (FieldSelection.isSparse(fields)) {
+                return new ResponseEntity<>(Mapper.mapFieldsToReadOnly(studentService.getStudentCourses(id, fields), CourseReadOnlyDTO::new), HttpStatus.OK);
+            }
             List<Course> courses = studentService.getStudentCourses(id);
             List<CourseReadOnlyDTO> readOnlyDTOs = new ArrayList<>();
             for (Course course : courses) {
-                readOnlyDTOs.add(Mapper.mapToReadOnlyDTO(course));
+                readOnlyDTOs.add(Mapper.mapToReadOnlyDTO(course, expand));
             }
             return new ResponseEntity<>(readOnlyDTOs, HttpStatus.OK);
         } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Enrolls a student in a set of courses.
+     *
+     * @param id    the ID of the student.
+     * @param dto   the IDs of the courses to enroll the student in.
+     * @return      a ResponseEntity with the outcome for every requested course or an error status.
+     */
+    @Operation(summary = "Enroll a student in courses")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Enrollments processed",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = EnrollmentResultDTO.class)) }),
+            @ApiResponse(responseCode = "400", description = "Invalid input was supplied",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Student not found",
+                    content = @Content)})
+    @PreAuthorize("@ownership.isStudent(#id)")
+    @PostMapping("/{id}/enrollments")
+    public ResponseEntity<List<EnrollmentResultDTO>> enrollInCourses(@PathVariable("id") Long id, @Valid @RequestBody EnrollmentInsertDTO dto) {
+        try {
+            List<EnrollmentResultDTO> results = enrollmentService.enrollStudentInCourses(id, dto.getIds());
+            return new ResponseEntity<>(results, HttpStatus.OK);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Retrieves the enrollments of a student created in a time window.
+     *
+     * @param id    the ID of the student.
+     * @param from  the start of the window, inclusive. Defaults to the start of the epoch.
+     * @param to    the end of the window, exclusive. Defaults to now.
+     * @param limit the maximum number of enrollments to return.
+     * @return      a ResponseEntity with the enrollments of the student, oldest first, or an error status.
+     */
+    @Operation(summary = "Get the enrollments of a student by time")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Enrollments Found",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = EnrollmentReadOnlyDTO.class)) }),
+            @ApiResponse(responseCode = "404", description = "Student not found",
+                    content = @Content)})
+    @PreAuthorize("@ownership.isStudent(#id)")
+    @GetMapping("/{id}/enrollments")
+    public ResponseEntity<List<EnrollmentReadOnlyDTO>> getEnrollments(@PathVariable("id") Long id,
+                                                                      @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                      @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            List<Enrollment> enrollments = enrollmentService.getStudentEnrollments(id,
+                    (from == null) ? LocalDateTime.of(1970, 1, 1, 0, 0) : from,
+                    (to == null) ? LocalDateTime.now() : to,
+                    KeysetCursor.normalizeLimit(limit));
+            List<EnrollmentReadOnlyDTO> readOnlyDTOS = new ArrayList<>();
+            for (Enrollment enrollment : enrollments) {
+                readOnlyDTOS.add(Mapper.mapEnrollmentToReadOnly(enrollment));
+            }
+            return new ResponseEntity<>(readOnlyDTOS, HttpStatus.OK);
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
 }
@@ -6,6 +6,9 @@ import gr.aueb.cf.schoolapp.model.Course;
 import gr.aueb.cf.schoolapp.model.Teacher;
 import gr.aueb.cf.schoolapp.service.ITeacherService;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityVersionConflictException;
+import gr.aueb.cf.schoolapp.service.util.FieldSelection;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 import gr.aueb.cf.schoolapp.validator.TeacherInsertValidator;
 import gr.aueb.cf.schoolapp.validator.TeacherUpdateValidator;
 import io.swagger.v3.oas.annotations.Operation;
@@ -15,8 +18,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -24,7 +29,9 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * REST Controller for managing Teacher entities.
@@ -78,6 +85,7 @@ public class TeacherRestController {
      * @param id    the ID of the teacher to update.
      * @param dto   the teacher update DTO containing the teacher details of the student.
      * @param bindingResult the binding result for validation errors.
+     * @param ifMatch the ETag the teacher must still have, if any.
      * @return  a ResponseEntity with the updated teacher or an error status.
      */
     @Operation(summary = "Update a teacher")
@@ -90,9 +98,13 @@ public class TeacherRestController {
             @ApiResponse(responseCode = "400", description = "Invalid input was supplied",
                     content = @Content),
             @ApiResponse(responseCode = "404", description = "Teacher not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "Teacher changed since the version in If-Match",
                     content = @Content) })
+    @PreAuthorize("@ownership.canUpdateTeacher(#id, #dto)")
     @PutMapping("/{id}")
-    public ResponseEntity<TeacherReadOnlyDTO> updateTeacher(@PathVariable("id") Long id, @Valid @RequestBody TeacherUpdateDTO dto, BindingResult bindingResult) {
+    public ResponseEntity<TeacherReadOnlyDTO> updateTeacher(@PathVariable("id") Long id, @Valid @RequestBody TeacherUpdateDTO dto, BindingResult bindingResult,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (!Objects.equals(id, dto.getId())) {
             return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
         }
@@ -101,11 +113,13 @@ public class TeacherRestController {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
         try {
-            Teacher teacher = teacherService.updateTeacher(dto);
+            Teacher teacher = teacherService.updateTeacher(dto, EntityTags.requiredVersion(ifMatch));
             TeacherReadOnlyDTO readOnlyDTO = Mapper.mapTeacherToReadOnly(teacher);
-            return new ResponseEntity<>(readOnlyDTO, HttpStatus.OK);
+            return EntityTags.ok(EntityTags.of(teacher), readOnlyDTO);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (EntityVersionConflictException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
         }
     }
 
@@ -113,6 +127,7 @@ public class TeacherRestController {
      * Deletes an existing teacher by its ID.
      *
      * @param id    the ID of the teacher to delete.
+     * @param ifMatch the ETag the teacher must still have, if any.
      * @return      a ResponseEntity with the deleted teacher or an error status.
      */
     @Operation(summary = "Delete a Teacher by id")
@@ -121,16 +136,20 @@ public class TeacherRestController {
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = TeacherReadOnlyDTO.class)) }),
             @ApiResponse(responseCode = "404", description = "Teacher not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "Teacher changed since the version in If-Match",
                     content = @Content)})
+    @PreAuthorize("@ownership.isTeacher(#id)")
     @DeleteMapping("/{id}")
-    public ResponseEntity<TeacherReadOnlyDTO> deleteTeacher(@PathVariable("id") Long id) {
+    public ResponseEntity<TeacherReadOnlyDTO> deleteTeacher(@PathVariable("id") Long id,
+                                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Teacher teacher = teacherService.getTeacherById(id);
-            TeacherReadOnlyDTO readOnlyDTO = Mapper.mapTeacherToReadOnly(teacher);
-            teacherService.deleteTeacher(id);
-            return ResponseEntity.ok(readOnlyDTO);
+            Teacher teacher = teacherService.deleteTeacher(id, EntityTags.requiredVersion(ifMatch));
+            return ResponseEntity.ok(Mapper.mapTeacherToReadOnly(teacher));
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (EntityVersionConflictException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
         }
     }
 
@@ -138,6 +157,8 @@ public class TeacherRestController {
      *  Retrieves a list o teachers by their lastname starting with the specified string.
      *
      * @param lastname  the starting substring of lastnames to search for.
+     * @param expand    the associations to embed in the response.
+     * @param fields    the fields to return instead of the full representation; expand is then ignored.
      * @return      a ResponseEntity with a list of the teachers or an error status.
      */
     @Operation(summary = "Get teachers by their lastname starting with initials")
@@ -148,17 +169,22 @@ public class TeacherRestController {
             @ApiResponse(responseCode = "400", description = "Invalid lastname supplied",
                     content = @Content)})
     @GetMapping("/by-lastname")
-    public ResponseEntity<List<TeacherReadOnlyDTO>> getTeacherByLastname(@RequestParam("lastname") String lastname) {
+    public ResponseEntity<List<TeacherReadOnlyDTO>> getTeacherByLastname(@RequestParam("lastname") String lastname, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields) {
         List<Teacher> teachers;
         try {
+            if (FieldSelection.isSparse(fields)) {
+                return new ResponseEntity<>(Mapper.mapFieldsToReadOnly(teacherService.getTeacherByLastname(lastname, fields), TeacherReadOnlyDTO::new), HttpStatus.OK);
+            }
             teachers = teacherService.getTeacherByLastname(lastname);
             List<TeacherReadOnlyDTO> readOnlyDTOS = new ArrayList<>();
             for (Teacher teacher : teachers) {
-                readOnlyDTOS.add(Mapper.mapTeacherToReadOnly(teacher));
+                readOnlyDTOS.add(Mapper.mapTeacherToReadOnly(teacher, expand));
             }
             return new ResponseEntity<>(readOnlyDTOS, HttpStatus.OK);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 
@@ -166,6 +192,9 @@ public class TeacherRestController {
      * Retrieves a teacher by its ID.
      *
      * @param id    the ID of the teacher to retrieve.
+     * @param expand the associations to embed in the response.
+     * @param fields the fields to return instead of the full representation; expand is then ignored.
+     * @param ifNoneMatch the ETags of the representations the client has, if any.
      * @return      a ResponseEntity with the retrieved teacher or an error status.
      */
     @Operation(summary = "Get a Teacher by id")
@@ -173,42 +202,78 @@ public class TeacherRestController {
             @ApiResponse(responseCode = "200", description = "Teacher Found",
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = TeacherReadOnlyDTO.class)) }),
+            @ApiResponse(responseCode = "304", description = "Teacher unchanged since the version in If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Teacher not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field requested",
                     content = @Content)})
+    @PreAuthorize("@ownership.isTeacher(#id)")
     @GetMapping("/{id}")
-    public ResponseEntity<TeacherReadOnlyDTO> getTeacher(@PathVariable("id") Long id) {
+    public ResponseEntity<TeacherReadOnlyDTO> getTeacher(@PathVariable("id") Long id, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields,
+                                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            if (FieldSelection.isSparse(fields)) {
+                return ResponseEntity.ok(Mapper.mapFieldsToReadOnly(teacherService.getTeacherById(id, fields), TeacherReadOnlyDTO::new));
+            }
+            if (expand != null && !expand.isEmpty()) {
+                return ResponseEntity.ok(Mapper.mapTeacherToReadOnly(teacherService.getTeacherDetailById(id), expand));
+            }
             Teacher teacher = teacherService.getTeacherById(id);
-            TeacherReadOnlyDTO dto = Mapper.mapTeacherToReadOnly(teacher);
-            return ResponseEntity.ok(dto);
+            String eTag = EntityTags.of(teacher);
+            ResponseEntity<TeacherReadOnlyDTO> notModified = EntityTags.notModified(eTag, ifNoneMatch);
+            if (notModified != null) {
+                return notModified;
+            }
+            return EntityTags.ok(eTag, Mapper.mapTeacherToReadOnly(teacher));
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 
     /**
-     * Retrieves all teachers.
+     * Retrieves a page of teachers ordered by lastname and ID.
      *
-     * @return a ResponseEntity with a list of all teachers or an error status.
+     * @param limit     the maximum number of teachers to return.
+     * @param cursor    the opaque cursor returned with the previous page, absent for the first page.
+     * @param expand    the associations to embed in the response.
+     * @param fields    the fields to return instead of the full representation; expand is then ignored.
+     * @return a ResponseEntity with a page of teachers and the cursor of the next page or an error status.
      */
     @Operation(summary = "Get all teachers")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Teachers Found",
                     content = { @Content(mediaType = "application/json",
-                            schema = @Schema(implementation = TeacherReadOnlyDTO.class)) }),
+                            schema = @Schema(implementation = KeysetPageDTO.class)) }),
             @ApiResponse(responseCode = "400", description = "Invalid request",
                     content = @Content)})
     @GetMapping("/")
-    public ResponseEntity<List<TeacherReadOnlyDTO>> getAllTeachers() {
-        List<Teacher> teachers;
+    public ResponseEntity<KeysetPageDTO<TeacherReadOnlyDTO>> getAllTeachers(@RequestParam(value = "limit", required = false) Integer limit, @RequestParam(value = "cursor", required = false) String cursor, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields) {
         try {
-            teachers = teacherService.getAllTeachers();
+            int pageSize = KeysetCursor.normalizeLimit(limit);
+            if (FieldSelection.isSparse(fields)) {
+                List<Map<String, Object>> rows = teacherService.getTeachersPage(KeysetCursor.decodeKeyed(cursor), pageSize, fields);
+                String next = null;
+                if (rows.size() == pageSize) {
+                    Map<String, Object> last = rows.get(rows.size() - 1);
+                    next = KeysetCursor.of((String) last.get("lastname"), (Long) last.get("id")).encode();
+                }
+                return new ResponseEntity<>(new KeysetPageDTO<>(Mapper.mapFieldsToReadOnly(rows, TeacherReadOnlyDTO::new), next), HttpStatus.OK);
+            }
+            List<Teacher> teachers = teacherService.getTeachersPage(KeysetCursor.decodeKeyed(cursor), pageSize);
             List<TeacherReadOnlyDTO> readOnlyDTOS = new ArrayList<>();
             for (Teacher teacher : teachers) {
-                readOnlyDTOS.add(Mapper.mapTeacherToReadOnly(teacher));
+                readOnlyDTOS.add(Mapper.mapTeacherToReadOnly(teacher, expand));
             }
-            return new ResponseEntity<>(readOnlyDTOS, HttpStatus.OK);
-        } catch (EntityNotFoundException e) {
+            String next = null;
+            if (teachers.size() == pageSize) {
+                Teacher last = teachers.get(teachers.size() - 1);
+                next = KeysetCursor.of(last.getLastname(), last.getId()).encode();
+            }
+            return new ResponseEntity<>(new KeysetPageDTO<>(readOnlyDTOS, next), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
@@ -227,6 +292,7 @@ public class TeacherRestController {
                             schema = @Schema(implementation = TeacherReadOnlyDTO.class)) }),
             @ApiResponse(responseCode = "404", description = "Teacher or Course not found",
                     content = @Content) })
+    @PreAuthorize("@ownership.isTeacher(#teacherId)")
     @PutMapping("/{teacherId}/courses/{courseId}")
     public ResponseEntity<TeacherReadOnlyDTO> addCourseToTeacher(@PathVariable("teacherId") Long teacherId, @PathVariable("courseId") Long courseId) {
         try {
@@ -253,6 +319,7 @@ public class TeacherRestController {
                             schema = @Schema(implementation = TeacherReadOnlyDTO.class)) }),
             @ApiResponse(responseCode = "404", description = "Teacher or Course not found",
                     content = @Content) })
+    @PreAuthorize("@ownership.isTeacher(#teacherId)")
     @DeleteMapping("/{teacherId}/courses/{courseId}")
     public ResponseEntity<TeacherReadOnlyDTO> removeCourseFromTeacher(@PathVariable("teacherId") Long teacherId, @PathVariable("courseId") Long courseId) {
         try {
@@ -269,6 +336,8 @@ public class TeacherRestController {
      *  Retrieves all courses from a teacher.
      *
      * @param id    The ID of the teacher.
+     * @param expand the associations to embed in the response.
+     * @param fields the fields to return instead of the full representation; expand is then ignored.
      * @return      a ResponseEntity with a list of all courses of a specified teacher or an error status.
      */
     @Operation(summary = "Get all courses of a teacher")
@@ -277,18 +346,26 @@ public class TeacherRestController {
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = CourseReadOnlyDTO.class)) }),
             @ApiResponse(responseCode = "404", description = "Teacher not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field requested",
                     content = @Content)})
+    @PreAuthorize("@ownership.isTeacher(#id)")
     @GetMapping("/{id}/courses")
-    public ResponseEntity<List<CourseReadOnlyDTO>> getTeacherCourses(@PathVariable("id") Long id) {
+    public ResponseEntity<List<CourseReadOnlyDTO>> getTeacherCourses(@PathVariable("id") Long id, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields) {
         try {
+            if (FieldSelection.isSparse(fields)) {
+                return new ResponseEntity<>(Mapper.mapFieldsToReadOnly(teacherService.getTeacherCourses(id, fields), CourseReadOnlyDTO::new), HttpStatus.OK);
+            }
             List<Course> courses = teacherService.getTeacherCourses(id);
             List<CourseReadOnlyDTO> readOnlyDTOs = new ArrayList<>();
             for (Course course : courses) {
-                readOnlyDTOs.add(Mapper.mapToReadOnlyDTO(course));
+                readOnlyDTOs.add(Mapper.mapToReadOnlyDTO(course, expand));
             }
             return new ResponseEntity<>(readOnlyDTOs, HttpStatus.OK);
         } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 }
@@ -1,12 +1,18 @@
 package gr.aueb.cf.schoolapp.rest;
 
+import gr.aueb.cf.schoolapp.dto.KeysetPageDTO;
 import gr.aueb.cf.schoolapp.dto.UserInsertDTO;
 import gr.aueb.cf.schoolapp.dto.UserReadOnlyDTO;
 import gr.aueb.cf.schoolapp.dto.UserUpdateDTO;
 import gr.aueb.cf.schoolapp.mapper.Mapper;
 import gr.aueb.cf.schoolapp.model.User;
+import gr.aueb.cf.schoolapp.service.ITokenRevocationService;
 import gr.aueb.cf.schoolapp.service.IUserService;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityVersionConflictException;
+import gr.aueb.cf.schoolapp.service.exceptions.HashingOverloadedException;
+import gr.aueb.cf.schoolapp.service.util.FieldSelection;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 import gr.aueb.cf.schoolapp.validator.UserInsertValidator;
 import gr.aueb.cf.schoolapp.validator.UserUpdateValidator;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,8 +22,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -25,7 +33,9 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * REST Controller for managing User entities.
@@ -35,6 +45,7 @@ import java.util.Objects;
 @RequiredArgsConstructor
 public class UserRestController {
     private final IUserService userService;
+    private final ITokenRevocationService tokenRevocationService;
     private final UserInsertValidator insertValidator;
     private final UserUpdateValidator updateValidator;
 
@@ -68,6 +79,8 @@ public class UserRestController {
                     .buildAndExpand(readOnlyDTO.getId())
                     .toUri();
             return ResponseEntity.created(location).body(readOnlyDTO);
+        } catch (HashingOverloadedException e) {
+            return RestExceptionHandler.serviceUnavailable(e);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
         }
@@ -79,6 +92,7 @@ public class UserRestController {
      * @param id    the ID of the user to update.
      * @param dto   the user update DTO containing the updated details of the user.
      * @param bindingResult the binding result for validation errors.
+     * @param ifMatch the ETag the user must still have, if any.
      * @return  a ResponseEntity with the updated user or an error status.
      */
     @Operation(summary = "Update a user")
@@ -91,9 +105,13 @@ public class UserRestController {
             @ApiResponse(responseCode = "400", description = "Invalid input was supplied",
                     content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "User changed since the version in If-Match",
                     content = @Content) })
+    @PreAuthorize("@ownership.canUpdateUser(#id, #dto)")
     @PutMapping("/{id}")
-    public ResponseEntity<UserReadOnlyDTO> updateUser(@PathVariable("id") Long id, @Valid @RequestBody UserUpdateDTO dto, BindingResult bindingResult) {
+    public ResponseEntity<UserReadOnlyDTO> updateUser(@PathVariable("id") Long id, @Valid @RequestBody UserUpdateDTO dto, BindingResult bindingResult,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (!Objects.equals(id, dto.getId())) {
             return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
         }
@@ -102,11 +120,13 @@ public class UserRestController {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
         try {
-            User user = userService.updateUser(dto);
+            User user = userService.updateUser(dto, EntityTags.requiredVersion(ifMatch));
             UserReadOnlyDTO readOnlyDTO = Mapper.mapUserToReadOnly(user);
-            return new ResponseEntity<>(readOnlyDTO, HttpStatus.OK);
+            return EntityTags.ok(eTag(user), readOnlyDTO);
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (EntityVersionConflictException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
         }
     }
 
@@ -114,6 +134,7 @@ public class UserRestController {
      * Deletes an existing user by its ID.
      *
      * @param id    the ID of the user to delete.
+     * @param ifMatch the ETag the user must still have, if any.
      * @return      a ResponseEntity with the deleted user or an error status.
      */
     @Operation(summary = "Delete a user by id")
@@ -122,14 +143,41 @@ public class UserRestController {
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = UserReadOnlyDTO.class)) }),
             @ApiResponse(responseCode = "404", description = "User not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "User changed since the version in If-Match",
                     content = @Content)})
+    @PreAuthorize("@ownership.isUser(#id)")
     @DeleteMapping("/{id}")
-    public ResponseEntity<UserReadOnlyDTO> deleteUser(@PathVariable("id") Long id) {
+    public ResponseEntity<UserReadOnlyDTO> deleteUser(@PathVariable("id") Long id,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            User user = userService.getUserById(id);
-            UserReadOnlyDTO readOnlyDTO = Mapper.mapUserToReadOnly(user);
-            userService.deleteUser(id);
-            return ResponseEntity.ok(readOnlyDTO);
+            User user = userService.deleteUser(id, EntityTags.requiredVersion(ifMatch));
+            return ResponseEntity.ok(Mapper.mapUserToReadOnly(user));
+        } catch (EntityNotFoundException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (EntityVersionConflictException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
+    }
+
+    /**
+     * Revokes every access and refresh token issued to a user, logging them out everywhere.
+     *
+     * @param id    the ID of the user whose tokens to revoke.
+     * @return      a ResponseEntity with no content or an error status.
+     */
+    @Operation(summary = "Revoke the tokens of a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Tokens revoked",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "User not found",
+                    content = @Content)})
+    @PostMapping("/{id}/revoke-tokens")
+    public ResponseEntity<Void> revokeTokens(@PathVariable("id") Long id) {
+        try {
+            userService.getUserById(id);
+            tokenRevocationService.revokeUser(id);
+            return ResponseEntity.noContent().build();
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -139,6 +187,9 @@ public class UserRestController {
      *  Retrieves a user by their username starting with the specified string.
      *
      * @param username  the starting substring of username to search for.
+     * @param expand    the associations to embed in the response.
+     * @param fields    the fields to return instead of the full representation; expand is then ignored.
+     * @param ifNoneMatch the ETags of the representations the client has, if any.
      * @return      a ResponseEntity with a user or an error status.
      */
     @Operation(summary = "Get user by  username ")
@@ -146,44 +197,77 @@ public class UserRestController {
             @ApiResponse(responseCode = "200", description = "User Found",
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = UserReadOnlyDTO.class)) }),
+            @ApiResponse(responseCode = "304", description = "User unchanged since the version in If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid username supplied",
                     content = @Content)})
+    @PreAuthorize("@ownership.isUsername(#username)")
     @GetMapping("/{username}")
-    public ResponseEntity<UserReadOnlyDTO> getUserByUsername(@PathVariable("username") String username) {
+    public ResponseEntity<UserReadOnlyDTO> getUserByUsername(@PathVariable("username") String username, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         User user;
         try {
+            if (FieldSelection.isSparse(fields)) {
+                return ResponseEntity.ok(Mapper.mapFieldsToReadOnly(userService.getUserByUsername(username, fields), UserReadOnlyDTO::new));
+            }
             user = userService.getUserByUsername(username);
-            UserReadOnlyDTO readOnlyDTO = Mapper.mapUserToReadOnly(user);
-
-            return new ResponseEntity<>(readOnlyDTO, HttpStatus.OK);
+            if (expand != null && !expand.isEmpty()) {
+                return new ResponseEntity<>(Mapper.mapUserToReadOnly(user, expand), HttpStatus.OK);
+            }
+            String eTag = eTag(user);
+            ResponseEntity<UserReadOnlyDTO> notModified = EntityTags.notModified(eTag, ifNoneMatch);
+            if (notModified != null) {
+                return notModified;
+            }
+            return EntityTags.ok(eTag, Mapper.mapUserToReadOnly(user));
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 
     /**
-     * Retrieves all users.
+     * Retrieves a page of users ordered by ID.
      *
-     * @return a ResponseEntity with a list of all users or an error status.
+     * @param limit     the maximum number of users to return.
+     * @param cursor    the opaque cursor returned with the previous page, absent for the first page.
+     * @param expand    the associations to embed in the response.
+     * @param fields    the fields to return instead of the full representation; expand is then ignored.
+     * @return a ResponseEntity with a page of users and the cursor of the next page or an error status.
      */
     @Operation(summary = "Get all users")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Users Found",
                     content = { @Content(mediaType = "application/json",
-                            schema = @Schema(implementation = UserReadOnlyDTO.class)) }),
+                            schema = @Schema(implementation = KeysetPageDTO.class)) }),
             @ApiResponse(responseCode = "400", description = "Invalid input was supplied",
                     content = @Content)})
     @GetMapping("/")
-    public ResponseEntity<List<UserReadOnlyDTO>> getAllUsers() {
-        List<User> users;
+    public ResponseEntity<KeysetPageDTO<UserReadOnlyDTO>> getAllUsers(@RequestParam(value = "limit", required = false) Integer limit, @RequestParam(value = "cursor", required = false) String cursor, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields) {
         try {
-            users = userService.getAllUsers();
+            int pageSize = KeysetCursor.normalizeLimit(limit);
+            if (FieldSelection.isSparse(fields)) {
+                List<Map<String, Object>> rows = userService.getUsersPage(KeysetCursor.decode(cursor), pageSize, fields);
+                String next = null;
+                if (rows.size() == pageSize) {
+                    Map<String, Object> last = rows.get(rows.size() - 1);
+                    next = KeysetCursor.of((Long) last.get("id")).encode();
+                }
+                return new ResponseEntity<>(new KeysetPageDTO<>(Mapper.mapFieldsToReadOnly(rows, UserReadOnlyDTO::new), next), HttpStatus.OK);
+            }
+            List<User> users = userService.getUsersPage(KeysetCursor.decode(cursor), pageSize);
             List<UserReadOnlyDTO> readOnlyDTOS = new ArrayList<>();
             for (User user : users) {
-                readOnlyDTOS.add(Mapper.mapUserToReadOnly(user));
+                readOnlyDTOS.add(Mapper.mapUserToReadOnly(user, expand));
             }
-            return new ResponseEntity<>(readOnlyDTOS, HttpStatus.OK);
-        } catch (EntityNotFoundException e) {
+            String next = null;
+            if (users.size() == pageSize) {
+                User last = users.get(users.size() - 1);
+                next = KeysetCursor.of(last.getId()).encode();
+            }
+            return new ResponseEntity<>(new KeysetPageDTO<>(readOnlyDTOS, next), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
@@ -192,6 +276,9 @@ public class UserRestController {
      * Retrieves a user by its ID.
      *
      * @param id    the ID of the user to retrieve.
+     * @param expand the associations to embed in the response.
+     * @param fields the fields to return instead of the full representation; expand is then ignored.
+     * @param ifNoneMatch the ETags of the representations the client has, if any.
      * @return      a ResponseEntity with the retrieved user or an error status.
      */
     @Operation(summary = "Get a user by id")
@@ -199,18 +286,44 @@ public class UserRestController {
             @ApiResponse(responseCode = "200", description = "User Found",
                     content = { @Content(mediaType = "application/json",
                             schema = @Schema(implementation = UserReadOnlyDTO.class)) }),
+            @ApiResponse(responseCode = "304", description = "User unchanged since the version in If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Unknown field requested",
                     content = @Content)})
+    @PreAuthorize("@ownership.isUser(#id)")
     @GetMapping("/by-id/{id}")
-    public ResponseEntity<UserReadOnlyDTO> getUser(@PathVariable("id") Long id) {
+    public ResponseEntity<UserReadOnlyDTO> getUser(@PathVariable("id") Long id, @RequestParam(value = "expand", required = false) Set<String> expand, @RequestParam(value = "fields", required = false) Set<String> fields,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            if (FieldSelection.isSparse(fields)) {
+                return ResponseEntity.ok(Mapper.mapFieldsToReadOnly(userService.getUserById(id, fields), UserReadOnlyDTO::new));
+            }
             User user = userService.getUserById(id);
-            UserReadOnlyDTO dto = Mapper.mapUserToReadOnly(user);
-            return new ResponseEntity<>(dto, HttpStatus.OK);
+            if (expand != null && !expand.isEmpty()) {
+                return new ResponseEntity<>(Mapper.mapUserToReadOnly(user, expand), HttpStatus.OK);
+            }
+            String eTag = eTag(user);
+            ResponseEntity<UserReadOnlyDTO> notModified = EntityTags.notModified(eTag, ifNoneMatch);
+            if (notModified != null) {
+                return notModified;
+            }
+            return EntityTags.ok(eTag, Mapper.mapUserToReadOnly(user));
         } catch (EntityNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 
-
+    /**
+     * The representation of a user includes the IDs of its teacher and student, which are columns
+     * of their rows, so they are part of its tag.
+     */
+    private static String eTag(User user) {
+        return EntityTags.of(user,
+                user.getTeacher() == null ? null : user.getTeacher().getId(),
+                user.getStudent() == null ? null : user.getStudent().getId());
+    }
 }
@@ -1,18 +1,26 @@
 package gr.aueb.cf.schoolapp.service;
 
+import gr.aueb.cf.schoolapp.config.CacheConfig;
 import gr.aueb.cf.schoolapp.dto.CityInsertDTO;
 import gr.aueb.cf.schoolapp.dto.CityUpdateDTO;
 import gr.aueb.cf.schoolapp.mapper.Mapper;
 import gr.aueb.cf.schoolapp.model.City;
 import gr.aueb.cf.schoolapp.repositories.CityRepository;
+import gr.aueb.cf.schoolapp.repositories.ProjectionRepository;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.util.FieldSelection;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * City Service.
@@ -21,7 +29,12 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class CityServiceImpl implements ICityService{
+    public static final Map<String, String> FIELDS = FieldSelection.fields(
+            "id", "id",
+            "city", "city");
+
     private final CityRepository cityRepository;
+    private final ProjectionRepository projectionRepository;
 
     /**
      * Inserts a new city into the database.
@@ -31,6 +44,7 @@ public class CityServiceImpl implements ICityService{
      * @throws Exception If there is an error during insertion.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CITIES, allEntries = true)
     @Override
     public City insertCity(CityInsertDTO dto) throws Exception {
         City city = null;
@@ -55,6 +69,7 @@ public class CityServiceImpl implements ICityService{
      * @throws EntityNotFoundException If the city with the given ID does not exist.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CITIES, allEntries = true)
     @Override
     public City updateCity(CityUpdateDTO dto) throws EntityNotFoundException {
         City city = null;
@@ -80,6 +95,7 @@ public class CityServiceImpl implements ICityService{
      * @throws EntityNotFoundException If the city with the given ID does not exist.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CITIES, allEntries = true)
     @Override
     public void deleteCity(Long id) throws EntityNotFoundException {
         City city = null;
@@ -103,7 +119,7 @@ public class CityServiceImpl implements ICityService{
      * @return The city entity.
      * @throws EntityNotFoundException If the city with the given ID does not exist.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public City getCityById(Long id) throws EntityNotFoundException {
         City city = null;
@@ -126,6 +142,7 @@ public class CityServiceImpl implements ICityService{
      * @return A list of all cities.
      * @throws EntityNotFoundException If no cities are found in the database.
      */
+    @Transactional(readOnly = true)
     @Override
     public List<City> getAllCities() throws EntityNotFoundException {
         List<City> cities = new ArrayList<>();
@@ -141,4 +158,52 @@ public class CityServiceImpl implements ICityService{
         }
         return cities;
     }
+
+    /**
+     * Retrieves the requested fields of a city by ID.
+     *
+     * @param id     The ID of the city to retrieve.
+     * @param fields The fields to select.
+     * @return The selected fields of the city.
+     * @throws EntityNotFoundException If the city with the given ID does not exist.
+     */
+    @Cacheable(cacheNames = CacheConfig.CITIES, key = "#id + ':' + T(gr.aueb.cf.schoolapp.service.util.FieldSelection).key(#fields)")
+    @Transactional(readOnly = true)
+    @Override
+    public Map<String, Object> getCityById(Long id, Collection<String> fields) throws EntityNotFoundException {
+        try {
+            Map<String, Object> city = projectionRepository.findFieldsById(City.class, FieldSelection.resolve(fields, FIELDS, "id"), id)
+                    .orElseThrow(() -> new EntityNotFoundException(City.class, id));
+            log.info("City with id  " + id + " was found");
+            return city;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the requested fields of all cities.
+     *
+     * @param fields The fields to select.
+     * @return A list of rows, one per city.
+     * @throws EntityNotFoundException If no cities exist.
+     */
+    @Cacheable(cacheNames = CacheConfig.CITIES, key = "'all:' + T(gr.aueb.cf.schoolapp.service.util.FieldSelection).key(#fields)")
+    @Transactional(readOnly = true)
+    @Override
+    public List<Map<String, Object>> getAllCities(Collection<String> fields) throws EntityNotFoundException {
+        try {
+            List<Map<String, Object>> cities = projectionRepository.findFields(City.class,
+                    FieldSelection.resolve(fields, FIELDS, "id"), null, Sort.by("id"), 0);
+            if (cities.isEmpty()) {
+                throw new EntityNotFoundException(City.class, 0L);
+            }
+            log.info("Retrieved all cities.");
+            return cities;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
 }
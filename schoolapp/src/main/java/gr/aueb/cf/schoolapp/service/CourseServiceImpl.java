@@ -1,18 +1,30 @@
 package gr.aueb.cf.schoolapp.service;
 
+import gr.aueb.cf.schoolapp.config.CacheConfig;
 import gr.aueb.cf.schoolapp.dto.CourseInsertDTO;
 import gr.aueb.cf.schoolapp.dto.CourseUpdateDTO;
 import gr.aueb.cf.schoolapp.mapper.Mapper;
 import gr.aueb.cf.schoolapp.model.Course;
 import gr.aueb.cf.schoolapp.repositories.CourseRepository;
+import gr.aueb.cf.schoolapp.repositories.EnrollmentRepository;
+import gr.aueb.cf.schoolapp.repositories.ProjectionRepository;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.util.FieldSelection;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Course Service.
@@ -21,7 +33,14 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class CourseServiceImpl implements ICourseService{
+    public static final Map<String, String> FIELDS = FieldSelection.fields(
+            "id", "id",
+            "courseName", "courseName",
+            "teacherId", "teacher.id");
+
     private final CourseRepository courseRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final ProjectionRepository projectionRepository;
 
     /**
      * Inserts a new course into the database.
@@ -31,6 +50,7 @@ public class CourseServiceImpl implements ICourseService{
      * @throws Exception If there is an error during insertion.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.COURSES, allEntries = true)
     @Override
     public Course insertCourse(CourseInsertDTO dto) throws Exception {
         Course course = null;
@@ -54,6 +74,7 @@ public class CourseServiceImpl implements ICourseService{
      * @throws EntityNotFoundException If the course with the given ID does not exist.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.COURSES, allEntries = true)
     @Override
     public Course updateCourse(CourseUpdateDTO dto) throws EntityNotFoundException {
         Course course = null;
@@ -79,6 +100,7 @@ public class CourseServiceImpl implements ICourseService{
      * @throws EntityNotFoundException If the course with the given ID does not exist.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.COURSES, allEntries = true)
     @Override
     public void deleteCourse(Long id) throws EntityNotFoundException {
         Course course = null;
@@ -87,6 +109,7 @@ public class CourseServiceImpl implements ICourseService{
             if (course == null ) {
                 throw new EntityNotFoundException(Course.class, id);
             }
+            enrollmentRepository.deleteByCourseId(id);
             courseRepository.deleteById(id);
             log.info("Course with id " + course.getId() + " was deleted");
         } catch (EntityNotFoundException e) {
@@ -102,6 +125,7 @@ public class CourseServiceImpl implements ICourseService{
      * @return The course entity.
      * @throws EntityNotFoundException If the course with the given ID does not exist.
      */
+    @Transactional(readOnly = true)
     @Override
     public Course getCourseById(Long id) throws EntityNotFoundException {
         Course course = null;
@@ -124,6 +148,7 @@ public class CourseServiceImpl implements ICourseService{
      * @return A list of all courses.
      * @throws EntityNotFoundException If no courses are found in the database.
      */
+    @Transactional(readOnly = true)
     @Override
     public List<Course> getAllCourses() throws EntityNotFoundException {
         List<Course> courses = new ArrayList<>();
@@ -139,4 +164,64 @@ public class CourseServiceImpl implements ICourseService{
         }
         return courses;
     }
+
+    /**
+     * Retrieves a page of courses ordered by ID.
+     *
+     * @param after The position of the last course of the previous page, or null for the first page.
+     * @param limit The maximum number of courses to return.
+     * @return A list of at most {@code limit} courses following the cursor.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Course> getCoursesPage(KeysetCursor after, int limit) {
+        Long lastId = (after == null) ? 0L : after.getId();
+        List<Course> courses = courseRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, limit));
+        log.info("Retrieved page of " + courses.size() + " courses.");
+        return courses;
+    }
+
+    /**
+     * Retrieves the requested fields of a course by ID.
+     *
+     * @param id     The ID of the course to retrieve.
+     * @param fields The fields to select.
+     * @return The selected fields of the course.
+     * @throws EntityNotFoundException If the course with the given ID does not exist.
+     */
+    @Cacheable(cacheNames = CacheConfig.COURSES, key = "#id + ':' + T(gr.aueb.cf.schoolapp.service.util.FieldSelection).key(#fields)")
+    @Transactional(readOnly = true)
+    @Override
+    public Map<String, Object> getCourseById(Long id, Collection<String> fields) throws EntityNotFoundException {
+        try {
+            Map<String, Object> course = projectionRepository.findFieldsById(Course.class, FieldSelection.resolve(fields, FIELDS, "id"), id)
+                    .orElseThrow(() -> new EntityNotFoundException(Course.class, id));
+            log.info("Course with id  " + id + " was found");
+            return course;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the requested fields of a page of courses ordered by ID.
+     * The ID is always selected, as it makes up the cursor of the next page.
+     *
+     * @param after  The position of the last course of the previous page, or null for the first page.
+     * @param limit  The maximum number of courses to return.
+     * @param fields The fields to select.
+     * @return A list of at most {@code limit} rows following the cursor.
+     */
+    @Cacheable(cacheNames = CacheConfig.COURSES, key = "'page:' + (#after == null ? 0 : #after.id) + ':' + #limit + ':' + T(gr.aueb.cf.schoolapp.service.util.FieldSelection).key(#fields)")
+    @Transactional(readOnly = true)
+    @Override
+    public List<Map<String, Object>> getCoursesPage(KeysetCursor after, int limit, Collection<String> fields) {
+        Long lastId = (after == null) ? 0L : after.getId();
+        Specification<Course> spec = (root, query, cb) -> cb.greaterThan(root.get("id"), lastId);
+        List<Map<String, Object>> courses = projectionRepository.findFields(Course.class,
+                FieldSelection.resolve(fields, FIELDS, "id"), spec, Sort.by("id"), limit);
+        log.info("Retrieved page of " + courses.size() + " courses.");
+        return courses;
+    }
 }
@@ -0,0 +1,278 @@
+package gr.aueb.cf.schoolapp.service;
+
+import gr.aueb.cf.schoolapp.dto.EnrollmentResultDTO;
+import gr.aueb.cf.schoolapp.model.Course;
+import gr.aueb.cf.schoolapp.model.Enrollment;
+import gr.aueb.cf.schoolapp.model.EnrollmentId;
+import gr.aueb.cf.schoolapp.model.Student;
+import gr.aueb.cf.schoolapp.repositories.CourseRepository;
+import gr.aueb.cf.schoolapp.repositories.EnrollmentRepository;
+import gr.aueb.cf.schoolapp.repositories.StudentRepository;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Enrollment Service.
+ * Writes the students_courses table one row per enrollment, so that enrolling or
+ * unenrolling never loads the rosters of the students or courses involved.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class EnrollmentServiceImpl implements IEnrollmentService {
+    private static final int CHUNK_SIZE = 1000;
+    private static final String INSERT_ENROLLMENT =
+            "INSERT IGNORE INTO students_courses (student_id, course_id, created_at, is_active) VALUES (?, ?, ?, true)";
+
+    private final StudentRepository studentRepository;
+    private final CourseRepository courseRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Enrolls a student in a course with a single insert.
+     *
+     * @param studentId The ID of the student.
+     * @param courseId  The ID of the course.
+     * @throws EntityNotFoundException If either the student or the course with the given IDs does not exist.
+     */
+    @Transactional
+    @Override
+    public void enroll(Long studentId, Long courseId) throws EntityNotFoundException {
+        try {
+            if (!studentRepository.existsById(studentId)) {
+                throw new EntityNotFoundException(Student.class, studentId);
+            }
+            if (!courseRepository.existsById(courseId)) {
+                throw new EntityNotFoundException(Course.class, courseId);
+            }
+            if (enrollmentRepository.existsById(new EnrollmentId(studentId, courseId))) {
+                log.info("Student with id " + studentId + " is already enrolled in course with id " + courseId);
+                return;
+            }
+            enrollmentRepository.save(new Enrollment(studentRepository.getReferenceById(studentId), courseRepository.getReferenceById(courseId)));
+            log.info("Enrolled student with id " + studentId + " in course with id " + courseId);
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Unenrolls a student from a course with a single delete.
+     *
+     * @param studentId The ID of the student.
+     * @param courseId  The ID of the course.
+     * @throws EntityNotFoundException If either the student or the course with the given IDs does not exist.
+     */
+    @Transactional
+    @Override
+    public void unenroll(Long studentId, Long courseId) throws EntityNotFoundException {
+        try {
+            if (enrollmentRepository.deleteByStudentIdAndCourseId(studentId, courseId) == 0) {
+                if (!studentRepository.existsById(studentId)) {
+                    throw new EntityNotFoundException(Student.class, studentId);
+                }
+                if (!courseRepository.existsById(courseId)) {
+                    throw new EntityNotFoundException(Course.class, courseId);
+                }
+            }
+            log.info("Unenrolled student with id " + studentId + " from course with id " + courseId);
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Makes the given courses the only courses of a student.
+     * Only the difference with the stored enrollments is written: one delete for the
+     * dropped courses and one insert per new course.
+     *
+     * @param student The managed student.
+     * @param courses The resolved courses the student should be enrolled in.
+     */
+    @Transactional
+    @Override
+    public void setStudentCourses(Student student, Collection<Course> courses) {
+        Set<Long> current = enrollmentRepository.findCourseIdsByStudentId(student.getId());
+        Set<Long> dropped = new HashSet<>(current);
+        List<Enrollment> added = new ArrayList<>();
+
+        student.clearEnrollments();
+        for (Course course : courses) {
+            Enrollment enrollment = student.enroll(course);
+            dropped.remove(course.getId());
+            if (!current.contains(course.getId())) {
+                added.add(enrollment);
+            }
+        }
+        if (!dropped.isEmpty()) {
+            enrollmentRepository.deleteByStudentIdAndCourseIdIn(student.getId(), dropped);
+        }
+        enrollmentRepository.saveAll(added);
+        log.info("Student with id " + student.getId() + " enrolled in " + added.size() + " and unenrolled from " + dropped.size() + " courses");
+    }
+
+    /**
+     * Retrieves the enrollments of a course created in a time window, oldest first.
+     *
+     * @param courseId The ID of the course.
+     * @param from     The start of the window, inclusive.
+     * @param to       The end of the window, exclusive.
+     * @param limit    The maximum number of enrollments to return.
+     * @return The enrollments of the course created in the window.
+     * @throws EntityNotFoundException If the course with the given ID does not exist.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Enrollment> getCourseEnrollments(Long courseId, LocalDateTime from, LocalDateTime to, int limit) throws EntityNotFoundException {
+        try {
+            if (!courseRepository.existsById(courseId)) {
+                throw new EntityNotFoundException(Course.class, courseId);
+            }
+            List<Enrollment> enrollments = enrollmentRepository.findByCourseIdCreatedBetween(courseId, from, to, PageRequest.of(0, limit));
+            log.info("Retrieved " + enrollments.size() + " enrollments of course with id " + courseId);
+            return enrollments;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the enrollments of a student created in a time window, oldest first.
+     *
+     * @param studentId The ID of the student.
+     * @param from      The start of the window, inclusive.
+     * @param to        The end of the window, exclusive.
+     * @param limit     The maximum number of enrollments to return.
+     * @return The enrollments of the student created in the window.
+     * @throws EntityNotFoundException If the student with the given ID does not exist.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Enrollment> getStudentEnrollments(Long studentId, LocalDateTime from, LocalDateTime to, int limit) throws EntityNotFoundException {
+        try {
+            if (!studentRepository.existsById(studentId)) {
+                throw new EntityNotFoundException(Student.class, studentId);
+            }
+            List<Enrollment> enrollments = enrollmentRepository.findByStudentIdCreatedBetween(studentId, from, to, PageRequest.of(0, limit));
+            log.info("Retrieved " + enrollments.size() + " enrollments of student with id " + studentId);
+            return enrollments;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Enrolls a set of students in a course.
+     *
+     * @param courseId   The ID of the course.
+     * @param studentIds The IDs of the students to enroll.
+     * @return The outcome for every requested student ID, in request order.
+     * @throws EntityNotFoundException If the course with the given ID does not exist.
+     */
+    @Transactional
+    @Override
+    public List<EnrollmentResultDTO> enrollStudentsInCourse(Long courseId, Collection<Long> studentIds) throws EntityNotFoundException {
+        try {
+            if (!courseRepository.existsById(courseId)) {
+                throw new EntityNotFoundException(Course.class, courseId);
+            }
+            List<EnrollmentResultDTO> results = enroll(studentIds,
+                    studentRepository::findExistingIds,
+                    chunk -> enrollmentRepository.findEnrolledStudentIds(courseId, chunk),
+                    studentId -> new Object[] {studentId, courseId});
+            log.info("Bulk enrollment of " + results.size() + " students in course with id " + courseId);
+            return results;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Enrolls a student in a set of courses.
+     *
+     * @param studentId The ID of the student.
+     * @param courseIds The IDs of the courses to enroll the student in.
+     * @return The outcome for every requested course ID, in request order.
+     * @throws EntityNotFoundException If the student with the given ID does not exist.
+     */
+    @Transactional
+    @Override
+    public List<EnrollmentResultDTO> enrollStudentInCourses(Long studentId, Collection<Long> courseIds) throws EntityNotFoundException {
+        try {
+            if (!studentRepository.existsById(studentId)) {
+                throw new EntityNotFoundException(Student.class, studentId);
+            }
+            List<EnrollmentResultDTO> results = enroll(courseIds,
+                    courseRepository::findExistingIds,
+                    chunk -> enrollmentRepository.findEnrolledCourseIds(studentId, chunk),
+                    courseId -> new Object[] {studentId, courseId});
+            log.info("Bulk enrollment of student with id " + studentId + " in " + results.size() + " courses");
+            return results;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Classifies the requested IDs with one existence query and one membership query
+     * per chunk, then inserts the missing pairs with a single JDBC batch stamped with
+     * the same enrollment time.
+     *
+     * @param ids          The requested IDs.
+     * @param findExisting Returns which IDs of a chunk exist.
+     * @param findEnrolled Returns which IDs of a chunk are already enrolled.
+     * @param toRow        Maps an ID to its (student_id, course_id) row.
+     * @return The outcome for every requested ID.
+     */
+    private List<EnrollmentResultDTO> enroll(Collection<Long> ids,
+                                             Function<Collection<Long>, Set<Long>> findExisting,
+                                             Function<Collection<Long>, Set<Long>> findEnrolled,
+                                             Function<Long, Object[]> toRow) {
+        List<Long> requested = new ArrayList<>(new LinkedHashSet<>(ids));
+        requested.removeIf(Objects::isNull);
+
+        Set<Long> existing = new HashSet<>();
+        Set<Long> enrolled = new HashSet<>();
+        for (int from = 0; from < requested.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = requested.subList(from, Math.min(from + CHUNK_SIZE, requested.size()));
+            existing.addAll(findExisting.apply(chunk));
+            enrolled.addAll(findEnrolled.apply(chunk));
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<EnrollmentResultDTO> results = new ArrayList<>(requested.size());
+        List<Object[]> rows = new ArrayList<>();
+        for (Long id : requested) {
+            if (!existing.contains(id)) {
+                results.add(new EnrollmentResultDTO(id, EnrollmentResultDTO.Status.NOT_FOUND));
+            } else if (enrolled.contains(id)) {
+                results.add(new EnrollmentResultDTO(id, EnrollmentResultDTO.Status.ALREADY_ENROLLED));
+            } else {
+                results.add(new EnrollmentResultDTO(id, EnrollmentResultDTO.Status.ENROLLED));
+                Object[] pair = toRow.apply(id);
+                rows.add(new Object[] {pair[0], pair[1], now});
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ENROLLMENT, rows);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,131 @@
+package gr.aueb.cf.schoolapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.aueb.cf.schoolapp.mapper.Mapper;
+import gr.aueb.cf.schoolapp.model.Enrollment;
+import gr.aueb.cf.schoolapp.model.Student;
+import gr.aueb.cf.schoolapp.model.Teacher;
+import gr.aueb.cf.schoolapp.repositories.EnrollmentRepository;
+import gr.aueb.cf.schoolapp.repositories.StudentRepository;
+import gr.aueb.cf.schoolapp.repositories.TeacherRepository;
+import gr.aueb.cf.schoolapp.service.util.ExportWriter;
+import gr.aueb.cf.schoolapp.service.util.FileFormat;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Export Service.
+ * Reads each table through a forward-only cursor and writes every row as soon as it is read,
+ * detaching the entity afterwards, so that neither the result set nor the persistence context
+ * grows with the number of rows.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ExportServiceImpl implements IExportService {
+    private static final List<String> STUDENT_COLUMNS = List.copyOf(StudentServiceImpl.FIELDS.keySet());
+    private static final List<String> TEACHER_COLUMNS = List.copyOf(TeacherServiceImpl.FIELDS.keySet());
+    private static final List<String> ENROLLMENT_COLUMNS = List.of("studentId", "courseId", "enrolledAt");
+
+    /**
+     * Rows after which the persistence context is cleared, dropping the association
+     * proxies that detaching the rows themselves leaves behind.
+     */
+    private static final int CLEAR_INTERVAL = 1000;
+
+    private final StudentRepository studentRepository;
+    private final TeacherRepository teacherRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes every student, ordered by ID.
+     *
+     * @param format The format of the output.
+     * @param out    The stream to write to. It is flushed but not closed.
+     * @return The number of students written.
+     * @throws IOException If the output cannot be written.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long exportStudents(FileFormat format, OutputStream out) throws IOException {
+        try (Stream<Student> students = studentRepository.streamAll()) {
+            long count = export(students, format, STUDENT_COLUMNS, out, Mapper::mapStudentToReadOnly);
+            log.info("Exported " + count + " students as " + format);
+            return count;
+        } catch (IOException e) {
+            log.error("Student export failed: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Writes every teacher, ordered by ID.
+     *
+     * @param format The format of the output.
+     * @param out    The stream to write to. It is flushed but not closed.
+     * @return The number of teachers written.
+     * @throws IOException If the output cannot be written.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long exportTeachers(FileFormat format, OutputStream out) throws IOException {
+        try (Stream<Teacher> teachers = teacherRepository.streamAll()) {
+            long count = export(teachers, format, TEACHER_COLUMNS, out, Mapper::mapTeacherToReadOnly);
+            log.info("Exported " + count + " teachers as " + format);
+            return count;
+        } catch (IOException e) {
+            log.error("Teacher export failed: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Writes every enrollment, ordered by student and course.
+     *
+     * @param format The format of the output.
+     * @param out    The stream to write to. It is flushed but not closed.
+     * @return The number of enrollments written.
+     * @throws IOException If the output cannot be written.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long exportEnrollments(FileFormat format, OutputStream out) throws IOException {
+        try (Stream<Enrollment> enrollments = enrollmentRepository.streamAll()) {
+            long count = export(enrollments, format, ENROLLMENT_COLUMNS, out, Mapper::mapEnrollmentToReadOnly);
+            log.info("Exported " + count + " enrollments as " + format);
+            return count;
+        } catch (IOException e) {
+            log.error("Enrollment export failed: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    private <T> long export(Stream<T> rows, FileFormat format, List<String> columns, OutputStream out,
+                            Function<T, ?> mapper) throws IOException {
+        long count = 0;
+        try (ExportWriter writer = new ExportWriter(format, columns, objectMapper, out)) {
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                writer.write(mapper.apply(row));
+                entityManager.detach(row);
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+}
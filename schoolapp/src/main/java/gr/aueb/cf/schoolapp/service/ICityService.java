@@ -5,7 +5,9 @@ import gr.aueb.cf.schoolapp.dto.CityUpdateDTO;
 import gr.aueb.cf.schoolapp.model.City;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ICityService {
     City insertCity(CityInsertDTO dto) throws Exception;
@@ -13,4 +15,7 @@ public interface ICityService {
     void deleteCity(Long id) throws EntityNotFoundException;
     City getCityById(Long id) throws EntityNotFoundException;
     List<City> getAllCities() throws EntityNotFoundException;
+
+    Map<String, Object> getCityById(Long id, Collection<String> fields) throws EntityNotFoundException;
+    List<Map<String, Object>> getAllCities(Collection<String> fields) throws EntityNotFoundException;
 }
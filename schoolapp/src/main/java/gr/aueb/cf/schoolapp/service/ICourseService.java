@@ -4,8 +4,11 @@ import gr.aueb.cf.schoolapp.dto.CourseInsertDTO;
 import gr.aueb.cf.schoolapp.dto.CourseUpdateDTO;
 import gr.aueb.cf.schoolapp.model.Course;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ICourseService {
     Course insertCourse(CourseInsertDTO dto) throws Exception;
@@ -13,4 +16,8 @@ public interface ICourseService {
     void deleteCourse(Long id) throws EntityNotFoundException;
     Course getCourseById(Long id) throws EntityNotFoundException;
     List<Course> getAllCourses() throws EntityNotFoundException;
+    List<Course> getCoursesPage(KeysetCursor after, int limit);
+
+    List<Map<String, Object>> getCoursesPage(KeysetCursor after, int limit, Collection<String> fields);
+    Map<String, Object> getCourseById(Long id, Collection<String> fields) throws EntityNotFoundException;
 }
@@ -0,0 +1,21 @@
+package gr.aueb.cf.schoolapp.service;
+
+import gr.aueb.cf.schoolapp.dto.EnrollmentResultDTO;
+import gr.aueb.cf.schoolapp.model.Course;
+import gr.aueb.cf.schoolapp.model.Enrollment;
+import gr.aueb.cf.schoolapp.model.Student;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface IEnrollmentService {
+    void enroll(Long studentId, Long courseId) throws EntityNotFoundException;
+    void unenroll(Long studentId, Long courseId) throws EntityNotFoundException;
+    void setStudentCourses(Student student, Collection<Course> courses);
+    List<Enrollment> getCourseEnrollments(Long courseId, LocalDateTime from, LocalDateTime to, int limit) throws EntityNotFoundException;
+    List<Enrollment> getStudentEnrollments(Long studentId, LocalDateTime from, LocalDateTime to, int limit) throws EntityNotFoundException;
+    List<EnrollmentResultDTO> enrollStudentsInCourse(Long courseId, Collection<Long> studentIds) throws EntityNotFoundException;
+    List<EnrollmentResultDTO> enrollStudentInCourses(Long studentId, Collection<Long> courseIds) throws EntityNotFoundException;
+}
@@ -0,0 +1,12 @@
+package gr.aueb.cf.schoolapp.service;
+
+import gr.aueb.cf.schoolapp.service.util.FileFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface IExportService {
+    long exportStudents(FileFormat format, OutputStream out) throws IOException;
+    long exportTeachers(FileFormat format, OutputStream out) throws IOException;
+    long exportEnrollments(FileFormat format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,18 @@
+package gr.aueb.cf.schoolapp.service;
+
+import gr.aueb.cf.schoolapp.model.ImportError;
+import gr.aueb.cf.schoolapp.model.ImportJob;
+import gr.aueb.cf.schoolapp.model.ImportType;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.ImportNotResumableException;
+import gr.aueb.cf.schoolapp.service.util.FileFormat;
+
+import java.io.InputStream;
+import java.util.List;
+
+public interface IImportService {
+    ImportJob createImport(ImportType type);
+    ImportJob runImport(Long id, FileFormat format, InputStream in) throws EntityNotFoundException, ImportNotResumableException;
+    ImportJob getImport(Long id) throws EntityNotFoundException;
+    List<ImportError> getImportErrors(Long id, int limit);
+}
@@ -0,0 +1,12 @@
+package gr.aueb.cf.schoolapp.service;
+
+import gr.aueb.cf.schoolapp.model.User;
+import gr.aueb.cf.schoolapp.service.exceptions.InvalidRefreshTokenException;
+import gr.aueb.cf.schoolapp.service.util.TokenRotation;
+
+public interface IRefreshTokenService {
+    String issue(User user);
+    TokenRotation rotate(String refreshToken) throws InvalidRefreshTokenException;
+    void revoke(String refreshToken, Long userId);
+    void revokeAll(Long userId);
+}
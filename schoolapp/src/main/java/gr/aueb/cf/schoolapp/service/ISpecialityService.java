@@ -5,7 +5,9 @@ import gr.aueb.cf.schoolapp.dto.SpecialityUpdateDTO;
 import gr.aueb.cf.schoolapp.model.Speciality;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ISpecialityService {
     Speciality insertSpeciality(SpecialityInsertDTO dto) throws Exception;
@@ -13,4 +15,7 @@ public interface ISpecialityService {
     void deleteSpeciality(Long id) throws EntityNotFoundException;
     Speciality getSpecialityById(Long id) throws EntityNotFoundException;
     List<Speciality> getAllSpecialities() throws EntityNotFoundException;
+
+    Map<String, Object> getSpecialityById(Long id, Collection<String> fields) throws EntityNotFoundException;
+    List<Map<String, Object>> getAllSpecialities(Collection<String> fields) throws EntityNotFoundException;
 }
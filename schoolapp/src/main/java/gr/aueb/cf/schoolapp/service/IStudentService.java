@@ -5,21 +5,31 @@ import gr.aueb.cf.schoolapp.dto.StudentInsertDTO;
 import gr.aueb.cf.schoolapp.dto.StudentUpdateDTO;
 import gr.aueb.cf.schoolapp.model.*;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityVersionConflictException;
 import gr.aueb.cf.schoolapp.service.exceptions.StudentAlreadyExistsException;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface IStudentService {
     Student insertStudent(StudentInsertDTO dto) throws Exception;
-    Student updateStudent(StudentUpdateDTO dto) throws EntityNotFoundException;
-    void deleteStudent(Long id) throws EntityNotFoundException;
+    Student updateStudent(StudentUpdateDTO dto, Long version) throws EntityNotFoundException, EntityVersionConflictException;
+    Student deleteStudent(Long id, Long version) throws EntityNotFoundException, EntityVersionConflictException;
     List<Student> getStudentByLastname(String lastname) throws EntityNotFoundException;
     List<Student> getStudentByGender(Gender gender) throws EntityNotFoundException;
     Student getStudentById(Long id) throws EntityNotFoundException;
+    Student getStudentDetailById(Long id) throws EntityNotFoundException;
     List<Student> getAllStudents() throws EntityNotFoundException;
+    List<Student> getStudentsPage(KeysetCursor after, int limit);
     Student registerStudent(RegisterStudentDTO dto) throws StudentAlreadyExistsException;
 
-    void addCourseToStudent(Long studentId, Long courseId) throws EntityNotFoundException;
-    void removeCourseFromStudent(Long studentId, Long courseId) throws EntityNotFoundException;
     List<Course> getStudentCourses(Long id) throws EntityNotFoundException;
+
+    List<Map<String, Object>> getStudentsPage(KeysetCursor after, int limit, Collection<String> fields);
+    Map<String, Object> getStudentById(Long id, Collection<String> fields) throws EntityNotFoundException;
+    List<Map<String, Object>> getStudentByLastname(String lastname, Collection<String> fields) throws EntityNotFoundException;
+    List<Map<String, Object>> getStudentByGender(Gender gender, Collection<String> fields) throws EntityNotFoundException;
+    List<Map<String, Object>> getStudentCourses(Long id, Collection<String> fields) throws EntityNotFoundException;
 }
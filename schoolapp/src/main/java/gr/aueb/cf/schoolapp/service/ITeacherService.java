@@ -6,21 +6,32 @@ import gr.aueb.cf.schoolapp.dto.TeacherUpdateDTO;
 import gr.aueb.cf.schoolapp.model.Course;
 import gr.aueb.cf.schoolapp.model.Teacher;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityVersionConflictException;
 import gr.aueb.cf.schoolapp.service.exceptions.TeacherAlreadyExistsException;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ITeacherService {
     Teacher insertTeacher(TeacherInsertDTO dto) throws Exception;
-    Teacher updateTeacher(TeacherUpdateDTO dto) throws EntityNotFoundException;
-    void deleteTeacher(Long id) throws EntityNotFoundException;
+    Teacher updateTeacher(TeacherUpdateDTO dto, Long version) throws EntityNotFoundException, EntityVersionConflictException;
+    Teacher deleteTeacher(Long id, Long version) throws EntityNotFoundException, EntityVersionConflictException;
     List<Teacher> getTeacherByLastname(String lastname) throws EntityNotFoundException;
     Teacher getTeacherById(Long id) throws EntityNotFoundException;
+    Teacher getTeacherDetailById(Long id) throws EntityNotFoundException;
     List<Teacher> getAllTeachers() throws EntityNotFoundException;
+    List<Teacher> getTeachersPage(KeysetCursor after, int limit);
     Teacher registerTeacher(RegisterTeacherDTO dto) throws TeacherAlreadyExistsException;
 
     void addCourseToTeacher(Long teacherId, Long courseId) throws EntityNotFoundException;
     void removeCourseFromTeacher(Long teacherId, Long courseId) throws EntityNotFoundException;
     List<Course> getTeacherCourses(Long id) throws EntityNotFoundException;
 
+    List<Map<String, Object>> getTeachersPage(KeysetCursor after, int limit, Collection<String> fields);
+    Map<String, Object> getTeacherById(Long id, Collection<String> fields) throws EntityNotFoundException;
+    List<Map<String, Object>> getTeacherByLastname(String lastname, Collection<String> fields) throws EntityNotFoundException;
+    List<Map<String, Object>> getTeacherCourses(Long id, Collection<String> fields) throws EntityNotFoundException;
+
 }
@@ -0,0 +1,8 @@
+package gr.aueb.cf.schoolapp.service;
+
+import gr.aueb.cf.schoolapp.authentication.util.VerifiedToken;
+
+public interface ITokenRevocationService {
+    void revokeToken(VerifiedToken token);
+    void revokeUser(Long userId);
+}
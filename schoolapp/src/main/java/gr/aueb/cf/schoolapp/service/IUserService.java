@@ -5,20 +5,28 @@ import gr.aueb.cf.schoolapp.dto.UserUpdateDTO;
 import gr.aueb.cf.schoolapp.model.Role;
 import gr.aueb.cf.schoolapp.model.User;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityVersionConflictException;
 import gr.aueb.cf.schoolapp.service.exceptions.UserAlreadyExistsException;
 import gr.aueb.cf.schoolapp.service.exceptions.WrongPasswordException;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface IUserService {
     User insertUser(UserInsertDTO dto) throws UserAlreadyExistsException, Exception;
-    User updateUser(UserUpdateDTO dto) throws EntityNotFoundException;
-    void deleteUser(Long id) throws EntityNotFoundException;
+    User updateUser(UserUpdateDTO dto, Long version) throws EntityNotFoundException, EntityVersionConflictException;
+    User deleteUser(Long id, Long version) throws EntityNotFoundException, EntityVersionConflictException;
     User getUserByUsername(String username) throws EntityNotFoundException;
     User getUserById(Long id) throws EntityNotFoundException;
     User getByUsername(String username) throws UsernameNotFoundException;
     List<User> getAllUsers() throws EntityNotFoundException;
+    List<User> getUsersPage(KeysetCursor after, int limit);
+    List<Map<String, Object>> getUsersPage(KeysetCursor after, int limit, Collection<String> fields);
+    Map<String, Object> getUserByUsername(String username, Collection<String> fields) throws EntityNotFoundException;
+    Map<String, Object> getUserById(Long id, Collection<String> fields) throws EntityNotFoundException;
     boolean checkPassword(User user, String rawPassword) throws WrongPasswordException;
     boolean isStudent(Role role);
     boolean isAdmin(Role role);
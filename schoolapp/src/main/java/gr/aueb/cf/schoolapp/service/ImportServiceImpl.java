@@ -0,0 +1,336 @@
+package gr.aueb.cf.schoolapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.aueb.cf.schoolapp.authentication.util.PasswordHashingService;
+import gr.aueb.cf.schoolapp.dto.RegisterStudentDTO;
+import gr.aueb.cf.schoolapp.dto.RegisterTeacherDTO;
+import gr.aueb.cf.schoolapp.model.ImportError;
+import gr.aueb.cf.schoolapp.model.ImportJob;
+import gr.aueb.cf.schoolapp.model.ImportStatus;
+import gr.aueb.cf.schoolapp.model.ImportType;
+import gr.aueb.cf.schoolapp.model.Role;
+import gr.aueb.cf.schoolapp.repositories.IdAllocator;
+import gr.aueb.cf.schoolapp.repositories.ImportErrorRepository;
+import gr.aueb.cf.schoolapp.repositories.ImportJobRepository;
+import gr.aueb.cf.schoolapp.repositories.UserRepository;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.ImportNotResumableException;
+import gr.aueb.cf.schoolapp.service.util.FileFormat;
+import gr.aueb.cf.schoolapp.service.util.ImportReader;
+import gr.aueb.cf.schoolapp.validator.RegisterStudentValidator;
+import gr.aueb.cf.schoolapp.validator.TeacherRegisterValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Import Service.
+ * Registers students or teachers in bulk from a streamed file, one chunk of rows at a time.
+ * Each chunk is validated as a whole, its usernames are checked with one query, its passwords
+ * are hashed in parallel on the password hashing pool and its rows, with IDs reserved from
+ * the ID generators, are written with JDBC batches. Rows, rejected rows and the progress of
+ * the job are committed together, so a job that stops resumes from its last committed chunk
+ * when the same file is sent again.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ImportServiceImpl implements IImportService {
+    /**
+     * How long a running job may go without committing a chunk before it is considered
+     * abandoned, for example because its node stopped, and may be resumed.
+     */
+    private static final Duration STALE_AFTER = Duration.ofMinutes(5);
+    private static final int MAX_MESSAGE_LENGTH = 255;
+    private static final String INSERT_USER =
+            "INSERT INTO users (id, username, password, role, created_at, updated_at, is_active, version) VALUES (?, ?, ?, ?, ?, ?, true, 0)";
+    private static final String INSERT_STUDENT =
+            "INSERT INTO students (id, firstname, lastname, gender, email, user_id, created_at, updated_at, is_active, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, true, 0)";
+    private static final String INSERT_TEACHER =
+            "INSERT INTO teachers (id, firstname, lastname, ssn, email, user_id, created_at, updated_at, is_active, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, true, 0)";
+    private static final String INSERT_ERROR =
+            "INSERT INTO import_errors (id, job_id, row_no, message) VALUES (?, ?, ?, ?)";
+
+    private final ImportJobRepository importJobRepository;
+    private final ImportErrorRepository importErrorRepository;
+    private final UserRepository userRepository;
+    private final IdAllocator idAllocator;
+    private final PasswordHashingService passwordHashingService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final RegisterStudentValidator registerStudentValidator;
+    private final TeacherRegisterValidator teacherRegisterValidator;
+    private final ObjectMapper objectMapper;
+
+    @Value("${import.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Creates a pending import job.
+     *
+     * @param type What the import creates.
+     * @return The new job.
+     */
+    @Transactional
+    @Override
+    public ImportJob createImport(ImportType type) {
+        ImportJob job = importJobRepository.save(new ImportJob(type));
+        log.info("Import with id " + job.getId() + " of " + type + " created");
+        return job;
+    }
+
+    /**
+     * Runs an import job, or resumes it after its last committed chunk.
+     * A failure stops the job and is recorded in it rather than thrown, so that the
+     * caller learns how far the job got and can resume it.
+     *
+     * @param id     The ID of the job.
+     * @param format The format of the file.
+     * @param in     The file, read once from the start. Rows already processed are skipped.
+     * @return The job after the run.
+     * @throws EntityNotFoundException      If the job does not exist.
+     * @throws ImportNotResumableException If the job is running elsewhere or has completed.
+     */
+    @Override
+    public ImportJob runImport(Long id, FileFormat format, InputStream in) throws EntityNotFoundException, ImportNotResumableException {
+        try {
+            Instant now = Instant.now();
+            if (importJobRepository.claim(id, ImportStatus.RUNNING, List.of(ImportStatus.PENDING, ImportStatus.FAILED),
+                    now, now.minus(STALE_AFTER)) == 0) {
+                getImport(id);
+                throw new ImportNotResumableException(id);
+            }
+        } catch (EntityNotFoundException | ImportNotResumableException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+        ImportJob job = getImport(id);
+        ImportStatus status = ImportStatus.COMPLETED;
+        String message = null;
+        try {
+            if (job.getType() == ImportType.STUDENTS) {
+                importRows(job, studentTarget(), format, in);
+            } else {
+                importRows(job, teacherTarget(), format, in);
+            }
+        } catch (IOException | RuntimeException e) {
+            status = ImportStatus.FAILED;
+            message = truncate(e.getMessage());
+            log.error("Import with id " + id + " failed: " + e.getMessage());
+        }
+        importJobRepository.finish(id, status, message, Instant.now());
+        job = getImport(id);
+        log.info("Import with id " + id + " " + status + ": " + job.getImportedRows() + " imported, "
+                + job.getFailedRows() + " rejected of " + job.getProcessedRows() + " rows");
+        return job;
+    }
+
+    /**
+     * Retrieves an import job, with its progress.
+     *
+     * @param id The ID of the job.
+     * @return The job.
+     * @throws EntityNotFoundException If the job does not exist.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public ImportJob getImport(Long id) throws EntityNotFoundException {
+        return importJobRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(ImportJob.class, id));
+    }
+
+    /**
+     * Retrieves the first rejected rows of an import job, in file order.
+     *
+     * @param id    The ID of the job.
+     * @param limit The maximum number of rows to return.
+     * @return The rejected rows.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<ImportError> getImportErrors(Long id, int limit) {
+        return importErrorRepository.findByJobIdOrderByRowNumberAsc(id, PageRequest.of(0, limit));
+    }
+
+    private <T> void importRows(ImportJob job, Target<T> target, FileFormat format, InputStream in) throws IOException {
+        try (ImportReader<T> reader = new ImportReader<>(format, target.type, objectMapper, in)) {
+            for (long skipped = 0; skipped < job.getProcessedRows(); skipped++) {
+                if (reader.next() == null) return;
+            }
+            List<ImportReader.Row<T>> chunk = new ArrayList<>(chunkSize);
+            ImportReader.Row<T> row;
+            while ((row = reader.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importChunk(job.getId(), target, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(job.getId(), target, chunk);
+            }
+        }
+    }
+
+    /**
+     * Imports one chunk. Everything slow happens before the transaction, which only writes.
+     */
+    private <T> void importChunk(Long jobId, Target<T> target, List<ImportReader.Row<T>> rows) {
+        List<Object[]> errors = new ArrayList<>();
+        List<ImportReader.Row<T>> valid = new ArrayList<>(rows.size());
+        Set<String> usernames = new HashSet<>();
+        for (ImportReader.Row<T> row : rows) {
+            String error = (row.getError() != null) ? row.getError() : validate(target, row.getValue());
+            if (error == null && !usernames.add(normalize(target.username.apply(row.getValue())))) {
+                error = "Username appears more than once in the file";
+            }
+            if (error == null) {
+                valid.add(row);
+            } else {
+                errors.add(new Object[] {jobId, row.getNumber(), truncate(error)});
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            Set<String> existing = userRepository.findExistingUsernames(
+                            valid.stream().map(row -> target.username.apply(row.getValue())).toList())
+                    .stream().map(ImportServiceImpl::normalize).collect(Collectors.toSet());
+            valid.removeIf(row -> {
+                if (!existing.contains(normalize(target.username.apply(row.getValue())))) return false;
+                errors.add(new Object[] {jobId, row.getNumber(), "Username already exists"});
+                return true;
+            });
+        }
+        List<String> passwords = passwordHashingService.encodeAll(
+                valid.stream().map(row -> target.password.apply(row.getValue())).toList());
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> users = new ArrayList<>(valid.size());
+        List<Object[]> entities = new ArrayList<>(valid.size());
+        if (!valid.isEmpty()) {
+            long firstUserId = idAllocator.allocate("users", valid.size());
+            long firstEntityId = idAllocator.allocate(target.table, valid.size());
+            for (int i = 0; i < valid.size(); i++) {
+                T dto = valid.get(i).getValue();
+                users.add(new Object[] {firstUserId + i, target.username.apply(dto), passwords.get(i), target.role.name(), now, now});
+                Object[] fields = target.fields.apply(dto);
+                Object[] params = new Object[fields.length + 4];
+                params[0] = firstEntityId + i;
+                System.arraycopy(fields, 0, params, 1, fields.length);
+                params[fields.length + 1] = firstUserId + i;
+                params[fields.length + 2] = now;
+                params[fields.length + 3] = now;
+                entities.add(params);
+            }
+        }
+        List<Object[]> rejected = new ArrayList<>(errors.size());
+        if (!errors.isEmpty()) {
+            long firstErrorId = idAllocator.allocate("import_errors", errors.size());
+            for (int i = 0; i < errors.size(); i++) {
+                Object[] error = errors.get(i);
+                rejected.add(new Object[] {firstErrorId + i, error[0], error[1], error[2]});
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(transaction -> {
+            if (!users.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_USER, users);
+                jdbcTemplate.batchUpdate(target.insertSql, entities);
+            }
+            if (!rejected.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ERROR, rejected);
+            }
+            importJobRepository.advance(jobId, rows.size(), users.size(), rejected.size(), Instant.now());
+        });
+        log.info("Import with id " + jobId + " committed rows " + rows.get(0).getNumber() + "-"
+                + rows.get(rows.size() - 1).getNumber() + ": " + valid.size() + " imported, " + errors.size() + " rejected");
+    }
+
+    /**
+     * Validates a row with its bean constraints and then with the validator of its registration endpoint.
+     *
+     * @return the reasons the row is invalid, or null if it is valid.
+     */
+    private <T> String validate(Target<T> target, T dto) {
+        Set<ConstraintViolation<T>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        Errors errors = new BeanPropertyBindingResult(dto, "row");
+        try {
+            target.validator.validate(dto, errors);
+        } catch (RuntimeException e) {
+            return "Required fields are missing";
+        }
+        if (!errors.hasErrors()) return null;
+        return errors.getAllErrors().stream()
+                .map(error -> (error instanceof FieldError fieldError)
+                        ? fieldError.getField() + ": " + fieldError.getCode()
+                        : error.getCode() + ": " + error.getDefaultMessage())
+                .collect(Collectors.joining("; "));
+    }
+
+    private Target<RegisterStudentDTO> studentTarget() {
+        return new Target<>(RegisterStudentDTO.class, registerStudentValidator, Role.STUDENT,
+                RegisterStudentDTO::getUsername, RegisterStudentDTO::getPassword, "students", INSERT_STUDENT,
+                dto -> new Object[] {dto.getFirstname(), dto.getLastname(),
+                        (dto.getGender() == null) ? null : dto.getGender().name(), dto.getEmail()});
+    }
+
+    private Target<RegisterTeacherDTO> teacherTarget() {
+        return new Target<>(RegisterTeacherDTO.class, teacherRegisterValidator, Role.TEACHER,
+                RegisterTeacherDTO::getUsername, RegisterTeacherDTO::getPassword, "teachers", INSERT_TEACHER,
+                dto -> new Object[] {dto.getFirstname(), dto.getLastname(), dto.getSsn(), dto.getEmail()});
+    }
+
+    /**
+     * Usernames are compared without case, as the database compares them.
+     */
+    private static String normalize(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static String truncate(String message) {
+        if (message == null) return null;
+        return (message.length() <= MAX_MESSAGE_LENGTH) ? message : message.substring(0, MAX_MESSAGE_LENGTH);
+    }
+
+    /**
+     * How the rows of one import type are read, validated and written.
+     * {@code fields} gives the columns of {@code insertSql} between the ID and the user ID.
+     */
+    @RequiredArgsConstructor
+    private static final class Target<T> {
+        private final Class<T> type;
+        private final org.springframework.validation.Validator validator;
+        private final Role role;
+        private final Function<T, String> username;
+        private final Function<T, String> password;
+        private final String table;
+        private final String insertSql;
+        private final Function<T, Object[]> fields;
+    }
+}
@@ -1,18 +1,26 @@
 package gr.aueb.cf.schoolapp.service;
 
+import gr.aueb.cf.schoolapp.config.CacheConfig;
 import gr.aueb.cf.schoolapp.dto.SpecialityInsertDTO;
 import gr.aueb.cf.schoolapp.dto.SpecialityUpdateDTO;
 import gr.aueb.cf.schoolapp.mapper.Mapper;
 import gr.aueb.cf.schoolapp.model.Speciality;
 import gr.aueb.cf.schoolapp.repositories.SpecialityRepository;
+import gr.aueb.cf.schoolapp.repositories.ProjectionRepository;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.util.FieldSelection;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Speciality Service.
@@ -21,7 +29,12 @@ import java.util.List;
 @Slf4j
 @RequiredArgsConstructor
 public class SpecialityServiceImpl implements ISpecialityService{
+    public static final Map<String, String> FIELDS = FieldSelection.fields(
+            "id", "id",
+            "speciality", "speciality");
+
     private final SpecialityRepository specialityRepository;
+    private final ProjectionRepository projectionRepository;
 
     /**
      * Inserts a new speciality into the database.
@@ -31,6 +44,7 @@ public class SpecialityServiceImpl implements ISpecialityService{
      * @throws Exception if an error occurs during the insertion process.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.SPECIALITIES, allEntries = true)
     @Override
     public Speciality insertSpeciality(SpecialityInsertDTO dto) throws Exception {
         Speciality speciality = null;
@@ -55,6 +69,7 @@ public class SpecialityServiceImpl implements ISpecialityService{
      * @throws EntityNotFoundException If the speciality with the given ID does not exist.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.SPECIALITIES, allEntries = true)
     @Override
     public Speciality updateSpeciality(SpecialityUpdateDTO dto) throws EntityNotFoundException {
         Speciality speciality = null;
@@ -80,6 +95,7 @@ public class SpecialityServiceImpl implements ISpecialityService{
      * @throws EntityNotFoundException If the speciality with the given ID does not exist.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.SPECIALITIES, allEntries = true)
     @Override
     public void deleteSpeciality(Long id) throws EntityNotFoundException {
         Speciality speciality = null;
@@ -103,7 +119,7 @@ public class SpecialityServiceImpl implements ISpecialityService{
      * @return The speciality entity.
      * @throws EntityNotFoundException If the speciality with the given ID does not exist.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public Speciality getSpecialityById(Long id) throws EntityNotFoundException {
         Speciality speciality = null;
@@ -126,6 +142,7 @@ public class SpecialityServiceImpl implements ISpecialityService{
      * @return A list of all specialities.
      * @throws EntityNotFoundException If no specialities are found in the database.
      */
+    @Transactional(readOnly = true)
     @Override
     public List<Speciality> getAllSpecialities() throws EntityNotFoundException {
         List<Speciality> specialities = new ArrayList<>();
@@ -141,4 +158,52 @@ public class SpecialityServiceImpl implements ISpecialityService{
         }
         return specialities;
     }
+
+    /**
+     * Retrieves the requested fields of a speciality by ID.
+     *
+     * @param id     The ID of the speciality to retrieve.
+     * @param fields The fields to select.
+     * @return The selected fields of the speciality.
+     * @throws EntityNotFoundException If the speciality with the given ID does not exist.
+     */
+    @Cacheable(cacheNames = CacheConfig.SPECIALITIES, key = "#id + ':' + T(gr.aueb.cf.schoolapp.service.util.FieldSelection).key(#fields)")
+    @Transactional(readOnly = true)
+    @Override
+    public Map<String, Object> getSpecialityById(Long id, Collection<String> fields) throws EntityNotFoundException {
+        try {
+            Map<String, Object> speciality = projectionRepository.findFieldsById(Speciality.class, FieldSelection.resolve(fields, FIELDS, "id"), id)
+                    .orElseThrow(() -> new EntityNotFoundException(Speciality.class, id));
+            log.info("Speciality with id  " + id + " was found");
+            return speciality;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the requested fields of all specialities.
+     *
+     * @param fields The fields to select.
+     * @return A list of rows, one per speciality.
+     * @throws EntityNotFoundException If no specialities exist.
+     */
+    @Cacheable(cacheNames = CacheConfig.SPECIALITIES, key = "'all:' + T(gr.aueb.cf.schoolapp.service.util.FieldSelection).key(#fields)")
+    @Transactional(readOnly = true)
+    @Override
+    public List<Map<String, Object>> getAllSpecialities(Collection<String> fields) throws EntityNotFoundException {
+        try {
+            List<Map<String, Object>> specialities = projectionRepository.findFields(Speciality.class,
+                    FieldSelection.resolve(fields, FIELDS, "id"), null, Sort.by("id"), 0);
+            if (specialities.isEmpty()) {
+                throw new EntityNotFoundException(Speciality.class, 0L);
+            }
+            log.info("Retrieved all specialities.");
+            return specialities;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
 }
@@ -7,12 +7,27 @@ import gr.aueb.cf.schoolapp.mapper.Mapper;
 import gr.aueb.cf.schoolapp.model.*;
 import gr.aueb.cf.schoolapp.repositories.CityRepository;
 import gr.aueb.cf.schoolapp.repositories.CourseRepository;
+import gr.aueb.cf.schoolapp.repositories.EnrollmentRepository;
+import gr.aueb.cf.schoolapp.repositories.ProjectionRepository;
 import gr.aueb.cf.schoolapp.repositories.StudentRepository;
 import gr.aueb.cf.schoolapp.repositories.UserRepository;
+import gr.aueb.cf.schoolapp.service.events.UserChangedEvent;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityVersionConflictException;
 import gr.aueb.cf.schoolapp.service.exceptions.StudentAlreadyExistsException;
+import gr.aueb.cf.schoolapp.service.util.EntityResolver;
+import gr.aueb.cf.schoolapp.service.util.FieldSelection;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,10 +40,24 @@ import java.util.*;
 @Slf4j
 @RequiredArgsConstructor
 public class StudentServiceImpl implements IStudentService{
+    public static final Map<String, String> FIELDS = FieldSelection.fields(
+            "id", "id",
+            "firstname", "firstname",
+            "lastname", "lastname",
+            "gender", "gender",
+            "email", "email",
+            "cityId", "city.id",
+            "userId", "user.id");
+
     private final CityRepository cityRepository;
     private final StudentRepository studentRepository;
     private final UserRepository userRepository;
     private final CourseRepository courseRepository;
+    private final EnrollmentRepository enrollmentRepository;
+    private final IEnrollmentService enrollmentService;
+    private final ProjectionRepository projectionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PasswordEncoder passwordEncoder;
 
     /**
      * Inserts a new student into database.
@@ -42,28 +71,21 @@ public class StudentServiceImpl implements IStudentService{
     public Student insertStudent(StudentInsertDTO dto) throws Exception {
         Student student = null;
         try {
-            City city = cityRepository.findById(dto.getCity().getId()).orElseThrow(() -> new EntityNotFoundException(City.class, dto.getCity().getId()));
-            User user = userRepository.findById(dto.getUser().getId()).orElseThrow(() -> new EntityNotFoundException(User.class, dto.getUser().getId()));
-            Set<Course> courses = new HashSet<>();
-            for (Course course : dto.getCourses()) {
-                Long courseId = course.getId();
-                Course courseToAdd = courseRepository.findById(courseId).orElseThrow(() -> new EntityNotFoundException(Course.class, courseId));
-                if (courseToAdd == null) {
-                    throw new EntityNotFoundException(Course.class, courseId);
-                }
-                courses.add(courseToAdd);
-            }
+            EntityResolver resolver = new EntityResolver();
+            City city = resolver.one(cityRepository, City.class, dto.getCity().getId());
+            User user = resolver.one(userRepository, User.class, dto.getUser().getId());
+            Set<Course> courses = resolver.all(courseRepository, Course.class, EntityResolver.idsOf(dto.getCourses(), Course::getId), Course::getId);
+            resolver.throwIfMissing();
+
             student = Mapper.mapToStudent(dto);
-            student.addCity(city);
+            student.setCity(city);
             student.addUser(user);
             user.setStudent(student);
-            for (Course course : courses) {
-                student.addCourse(course);
-            }
-            studentRepository.save(student);
+            student = studentRepository.save(student);
             if (student.getId() == null) {
                 throw new Exception("Insert error");
             }
+            enrollmentService.setStudentCourses(student, courses);
             log.info("Insert success for student with id " + student.getId());
         } catch (Exception e) {
             log.error(e.getMessage());
@@ -76,67 +98,82 @@ public class StudentServiceImpl implements IStudentService{
      * Updates an existing student in database.
      *
      * @param dto The DTO containing updated student data.
+     * @param version The version the student must still have, or null to update any version.
      * @return The updated student entity.
      * @throws EntityNotFoundException If the student with the given ID does not exist.
+     * @throws EntityVersionConflictException If the student no longer has the given version.
      */
     @Transactional
     @Override
-    public Student updateStudent(StudentUpdateDTO dto) throws EntityNotFoundException {
+    public Student updateStudent(StudentUpdateDTO dto, Long version) throws EntityNotFoundException, EntityVersionConflictException {
         Student student = null;
-        Student updatedStudent = null;
         try {
-            student = studentRepository.findStudentById(dto.getId());
+            student = studentRepository.findWithUserById(dto.getId());
             if (student == null ) {
                 throw new EntityNotFoundException(Student.class, dto.getId());
             }
-            updatedStudent = Mapper.mapToStudent(dto);
-            City city = cityRepository.findById(dto.getCity().getId()).orElseThrow(() -> new EntityNotFoundException(City.class, dto.getCity().getId()));
-            User user = userRepository.findById(dto.getUser().getId()).orElseThrow(() -> new EntityNotFoundException(User.class, dto.getUser().getId()));
-            Set<Course> courses = new HashSet<>();
-            for (Course course : dto.getCourses()) {
-                Long courseId = course.getId();
-                Course courseToAdd = courseRepository.findById(courseId).orElseThrow(() -> new EntityNotFoundException(Course.class, courseId));
-                if (courseToAdd == null) {
-                    throw new EntityNotFoundException(Course.class, courseId);
-                }
-                courses.add(courseToAdd);
+            if (version != null && !version.equals(student.getVersion())) {
+                throw new EntityVersionConflictException(Student.class, dto.getId());
             }
-            updatedStudent.addCity(city);
-            updatedStudent.addUser(user);
-            user.setStudent(updatedStudent);
-            for (Course course : courses) {
-                updatedStudent.addCourse(course);
+            EntityResolver resolver = new EntityResolver();
+            City city = resolver.one(cityRepository, City.class, dto.getCity().getId());
+            User user = resolver.one(userRepository, User.class, dto.getUser().getId());
+            Set<Course> courses = resolver.all(courseRepository, Course.class, EntityResolver.idsOf(dto.getCourses(), Course::getId), Course::getId);
+            resolver.throwIfMissing();
+
+            student.setFirstname(dto.getFirstname());
+            student.setLastname(dto.getLastname());
+            student.setGender(dto.getGender());
+            student.setEmail(dto.getEmail());
+            student.setCity(city);
+            if (!user.equals(student.getUser())) {
+                if (student.getUser() != null) {
+                    eventPublisher.publishEvent(new UserChangedEvent(student.getUser().getId(), student.getUser().getUsername()));
+                }
+                eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getUsername()));
             }
-            studentRepository.save(updatedStudent);
-            log.info("Student with id " + updatedStudent.getId() + " was updated");
-        } catch (EntityNotFoundException e) {
+            student.addUser(user);
+            enrollmentService.setStudentCourses(student, courses);
+            log.info("Student with id " + student.getId() + " was updated");
+        } catch (EntityNotFoundException | EntityVersionConflictException e) {
             log.error(e.getMessage());
             throw e;
         }
-        return updatedStudent;
+        return student;
     }
 
     /**
      * Deletes a student from database.
      *
      * @param id The ID of the student to delete.
+     * @param version The version the student must still have, or null to delete any version.
+     * @return The deleted student.
      * @throws EntityNotFoundException If the student with the given ID does not exist.
+     * @throws EntityVersionConflictException If the student no longer has the given version.
      */
     @Transactional
     @Override
-    public void deleteStudent(Long id) throws EntityNotFoundException {
+    public Student deleteStudent(Long id, Long version) throws EntityNotFoundException, EntityVersionConflictException {
         Student student = null;
         try {
-            student = studentRepository.findStudentById(id);
+            student = studentRepository.findWithUserById(id);
             if (student == null ) {
                 throw new EntityNotFoundException(Student.class, id);
             }
-            studentRepository.deleteById(id);
+            if (version != null && !version.equals(student.getVersion())) {
+                throw new EntityVersionConflictException(Student.class, id);
+            }
+            enrollmentRepository.deleteByStudentId(id);
+            if (student.getUser() != null) {
+                eventPublisher.publishEvent(new UserChangedEvent(student.getUser().getId(), student.getUser().getUsername()));
+            }
+            studentRepository.delete(student);
             log.info("Student with id " + student.getId() + " was deleted");
-        } catch (EntityNotFoundException e) {
+        } catch (EntityNotFoundException | EntityVersionConflictException e) {
             log.error(e.getMessage());
             throw e;
         }
+        return student;
     }
 
     /**
@@ -146,6 +183,7 @@ public class StudentServiceImpl implements IStudentService{
      * @return A list of students matching the criteria.
      * @throws EntityNotFoundException If no students match the criteria.
      */
+    @Transactional(readOnly = true)
     @Override
     public List<Student> getStudentByLastname(String lastname) throws EntityNotFoundException {
         List<Student> students = new ArrayList<>();
@@ -169,9 +207,30 @@ public class StudentServiceImpl implements IStudentService{
      * @return The student entity.
      * @throws EntityNotFoundException If the student with the given ID does not exist.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public Student getStudentById(Long id) throws EntityNotFoundException {
+        Student student = null;
+        try {
+            student = studentRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Student.class, id));
+            log.info("Student with id  " + id + " was found");
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+        return student;
+    }
+
+    /**
+     * Retrieves a student by ID together with the associations its representation can embed.
+     *
+     * @param id The ID of the student to retrieve.
+     * @return The student entity.
+     * @throws EntityNotFoundException If the student with the given ID does not exist.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public Student getStudentDetailById(Long id) throws EntityNotFoundException {
         Student student = null;
         try {
             student = studentRepository.findStudentById(id);
@@ -201,7 +260,7 @@ public class StudentServiceImpl implements IStudentService{
             if (returnedUser.isPresent()) {
                 throw new StudentAlreadyExistsException(dto.getUsername());
             }
-            User user = User.NEW_STUDENT(dto.getUsername(), dto.getPassword());
+            User user = User.NEW_STUDENT(dto.getUsername(), passwordEncoder.encode(dto.getPassword()));
             Student student = Mapper.extractStudentFromRegisterStudentDTO(dto);
             student.addUser(user);
             studentRepository.save(student);
@@ -221,6 +280,7 @@ public class StudentServiceImpl implements IStudentService{
      * @return A list of students matching the criteria.
      * @throws EntityNotFoundException If no students match the criteria.
      */
+    @Transactional(readOnly = true)
     @Override
     public List<Student> getStudentByGender(Gender gender) throws EntityNotFoundException {
         List<Student> students = new ArrayList<>();
@@ -243,6 +303,7 @@ public class StudentServiceImpl implements IStudentService{
      * @return A list of all students.
      * @throws EntityNotFoundException If no students are registered in the system.
      */
+    @Transactional(readOnly = true)
     @Override
     public List<Student> getAllStudents() throws EntityNotFoundException {
         List<Student> students = new ArrayList<>();
@@ -260,24 +321,40 @@ public class StudentServiceImpl implements IStudentService{
     }
 
     /**
-     * Adds a course to a student's list of courses.
+     * Retrieves a page of students ordered by lastname and ID.
      *
-     * @param studentId The ID of the student.
-     * @param courseId  The ID of the course to add.
-     * @throws EntityNotFoundException If either the student or the course with the given IDs does not exist.
+     * @param after The position of the last student of the previous page, or null for the first page.
+     * @param limit The maximum number of students to return.
+     * @return A list of at most {@code limit} students following the cursor.
      */
+    @Transactional(readOnly = true)
     @Override
-    @Transactional
-    public void addCourseToStudent(Long studentId, Long courseId) throws EntityNotFoundException {
-        try {
-            Student student = studentRepository.findById(studentId).orElseThrow(() -> new EntityNotFoundException(Student.class, studentId));
-            Course course = courseRepository.findById(courseId).orElseThrow(() -> new EntityNotFoundException(Course.class, courseId));
+    public List<Student> getStudentsPage(KeysetCursor after, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+        List<Student> students = (after == null)
+                ? studentRepository.findAllByOrderByLastnameAscIdAsc(pageable)
+                : studentRepository.findPageAfter(after.getKey(), after.getId(), pageable);
+        log.info("Retrieved page of " + students.size() + " students.");
+        return students;
+    }
 
-            student.addCourse(course);
-            course.addStudent(student);
-            studentRepository.save(student);
-            courseRepository.save(course);
-            log.info("Added course with id " + courseId + " to student with id " + studentId);
+    /**
+     * Retrieves all courses from a student.
+     *
+     * @param id  The ID of the student.
+     * @return    A list of all student's  courses.
+     * @throws EntityNotFoundException  If either the student with the given ID does not exist.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Course> getStudentCourses(Long id) throws EntityNotFoundException {
+        try {
+            if (!studentRepository.existsById(id)) {
+                throw new EntityNotFoundException(Student.class, id);
+            }
+            List<Course> courses = courseRepository.findEnrolledByStudentId(id);
+            log.info("Retrieved all courses from student with id " + id);
+            return courses;
         } catch (EntityNotFoundException e) {
             log.error(e.getMessage());
             throw e;
@@ -285,23 +362,94 @@ public class StudentServiceImpl implements IStudentService{
     }
 
     /**
-     * Removes a course from a student's list of courses.
+     * Retrieves the requested fields of a page of students ordered by lastname and ID.
+     * The ID and lastname are always selected, as they make up the cursor of the next page.
      *
-     * @param studentId The ID of the student.
-     * @param courseId  The ID of the course to remove.
-     * @throws EntityNotFoundException If either the student or the course with the given IDs does not exist.
+     * @param after  The position of the last student of the previous page, or null for the first page.
+     * @param limit  The maximum number of students to return.
+     * @param fields The fields to select.
+     * @return A list of at most {@code limit} rows following the cursor.
      */
-    @Transactional
+    @Transactional(readOnly = true)
+    @Override
+    public List<Map<String, Object>> getStudentsPage(KeysetCursor after, int limit, Collection<String> fields) {
+        Specification<Student> spec = (after == null) ? null : (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("lastname"), after.getKey()),
+                cb.and(cb.equal(root.get("lastname"), after.getKey()), cb.greaterThan(root.get("id"), after.getId())));
+        List<Map<String, Object>> students = projectionRepository.findFields(Student.class,
+                FieldSelection.resolve(fields, FIELDS, "id", "lastname"), spec, Sort.by("lastname", "id"), limit);
+        log.info("Retrieved page of " + students.size() + " students.");
+        return students;
+    }
+
+    /**
+     * Retrieves the requested fields of a student by ID.
+     *
+     * @param id     The ID of the student to retrieve.
+     * @param fields The fields to select.
+     * @return The selected fields of the student.
+     * @throws EntityNotFoundException If the student with the given ID does not exist.
+     */
+    @Transactional(readOnly = true)
     @Override
-    public void removeCourseFromStudent(Long studentId, Long courseId) throws EntityNotFoundException {
+    public Map<String, Object> getStudentById(Long id, Collection<String> fields) throws EntityNotFoundException {
         try {
-            Student student = studentRepository.findById(studentId).orElseThrow(() -> new EntityNotFoundException(Student.class, studentId));
-            Course course = courseRepository.findById(courseId).orElseThrow(() -> new EntityNotFoundException(Course.class, courseId));
+            Map<String, Object> student = projectionRepository.findFieldsById(Student.class, FieldSelection.resolve(fields, FIELDS, "id"), id)
+                    .orElseThrow(() -> new EntityNotFoundException(Student.class, id));
+            log.info("Student with id  " + id + " was found");
+            return student;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
 
-            student.removeCourse(course);
-            studentRepository.save(student);
+    /**
+     * Retrieves the requested fields of the students whose lastname starts with the specified string.
+     *
+     * @param lastname The starting substring of lastnames to search for.
+     * @param fields   The fields to select.
+     * @return A list of rows matching the criteria.
+     * @throws EntityNotFoundException If no students match the criteria.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Map<String, Object>> getStudentByLastname(String lastname, Collection<String> fields) throws EntityNotFoundException {
+        try {
+            Specification<Student> spec = (root, query, cb) -> cb.like(root.get("lastname"), lastname + "%");
+            List<Map<String, Object>> students = projectionRepository.findFields(Student.class,
+                    FieldSelection.resolve(fields, FIELDS, "id"), spec, Sort.by("lastname", "id"), 0);
+            if (students.isEmpty()) {
+                throw new EntityNotFoundException(Student.class, 0L);
+            }
+            log.info("Students with lastname starting with " + lastname + " were found");
+            return students;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
 
-            log.info("Removed course with id " + courseId + " from student with id " + studentId);
+    /**
+     * Retrieves the requested fields of the students of a gender.
+     *
+     * @param gender The gender of students to retrieve.
+     * @param fields The fields to select.
+     * @return A list of rows matching the criteria.
+     * @throws EntityNotFoundException If no students match the criteria.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Map<String, Object>> getStudentByGender(Gender gender, Collection<String> fields) throws EntityNotFoundException {
+        try {
+            Specification<Student> spec = (root, query, cb) -> cb.equal(root.get("gender"), gender);
+            List<Map<String, Object>> students = projectionRepository.findFields(Student.class,
+                    FieldSelection.resolve(fields, FIELDS, "id"), spec, Sort.by("lastname", "id"), 0);
+            if (students.isEmpty()) {
+                throw new EntityNotFoundException(Student.class, 0L);
+            }
+            log.info("Students with gender " + gender + " were found");
+            return students;
         } catch (EntityNotFoundException e) {
             log.error(e.getMessage());
             throw e;
@@ -309,18 +457,29 @@ public class StudentServiceImpl implements IStudentService{
     }
 
     /**
-     * Retrieves all courses from a student.
+     * Retrieves the requested fields of the courses of a student.
      *
-     * @param id  The ID of the student.
-     * @return    A list of all student's  courses.
-     * @throws EntityNotFoundException  If either the student with the given ID does not exist.
+     * @param id     The ID of the student.
+     * @param fields The fields of the courses to select.
+     * @return A list of rows, one per course of the student.
+     * @throws EntityNotFoundException If the student with the given ID does not exist.
      */
+    @Transactional(readOnly = true)
     @Override
-    public List<Course> getStudentCourses(Long id) throws EntityNotFoundException {
+    public List<Map<String, Object>> getStudentCourses(Long id, Collection<String> fields) throws EntityNotFoundException {
         try {
-            List<Course> courses = new ArrayList<>();
-            Student student = studentRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Student.class, id));
-            courses = student.getAllCourses().stream().toList();
+            if (!studentRepository.existsById(id)) {
+                throw new EntityNotFoundException(Student.class, id);
+            }
+            Specification<Course> spec = (root, query, cb) -> {
+                Subquery<Long> enrolled = query.subquery(Long.class);
+                Root<Enrollment> enrollment = enrolled.from(Enrollment.class);
+                enrolled.select(enrollment.get("id").get("courseId"))
+                        .where(cb.equal(enrollment.get("id").get("studentId"), id));
+                return root.get("id").in(enrolled);
+            };
+            List<Map<String, Object>> courses = projectionRepository.findFields(Course.class,
+                    FieldSelection.resolve(fields, CourseServiceImpl.FIELDS, "id"), spec, Sort.by("id"), 0);
             log.info("Retrieved all courses from student with id " + id);
             return courses;
         } catch (EntityNotFoundException e) {
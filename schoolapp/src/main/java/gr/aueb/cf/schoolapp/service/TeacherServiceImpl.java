@@ -1,25 +1,37 @@
 package gr.aueb.cf.schoolapp.service;
 
+import gr.aueb.cf.schoolapp.config.CacheConfig;
 import gr.aueb.cf.schoolapp.dto.RegisterTeacherDTO;
 import gr.aueb.cf.schoolapp.dto.TeacherInsertDTO;
 import gr.aueb.cf.schoolapp.dto.TeacherUpdateDTO;
 import gr.aueb.cf.schoolapp.mapper.Mapper;
 import gr.aueb.cf.schoolapp.model.*;
 import gr.aueb.cf.schoolapp.repositories.CourseRepository;
+import gr.aueb.cf.schoolapp.repositories.ProjectionRepository;
 import gr.aueb.cf.schoolapp.repositories.SpecialityRepository;
 import gr.aueb.cf.schoolapp.repositories.TeacherRepository;
 import gr.aueb.cf.schoolapp.repositories.UserRepository;
+import gr.aueb.cf.schoolapp.service.events.UserChangedEvent;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityVersionConflictException;
 import gr.aueb.cf.schoolapp.service.exceptions.StudentAlreadyExistsException;
 import gr.aueb.cf.schoolapp.service.exceptions.TeacherAlreadyExistsException;
+import gr.aueb.cf.schoolapp.service.util.EntityResolver;
+import gr.aueb.cf.schoolapp.service.util.FieldSelection;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 /**
  * Teacher service.
@@ -28,10 +40,22 @@ import java.util.Optional;
 @Slf4j
 @RequiredArgsConstructor
 public class TeacherServiceImpl implements ITeacherService{
+    public static final Map<String, String> FIELDS = FieldSelection.fields(
+            "id", "id",
+            "firstname", "firstname",
+            "lastname", "lastname",
+            "ssn", "ssn",
+            "email", "email",
+            "specialityId", "speciality.id",
+            "userId", "user.id");
+
     private final TeacherRepository teacherRepository;
     private final UserRepository userRepository;
     private final SpecialityRepository specialityRepository;
     private final CourseRepository courseRepository;
+    private final ProjectionRepository projectionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PasswordEncoder passwordEncoder;
 
     /**
      * Inserts a new teacher into database.
@@ -41,16 +65,25 @@ public class TeacherServiceImpl implements ITeacherService{
      * @throws Exception If there is an error during insertion.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.COURSES, allEntries = true)
     @Override
     public Teacher insertTeacher(TeacherInsertDTO dto) throws Exception {
         Teacher teacher = null;
         try {
-            Speciality speciality = specialityRepository.findById(dto.getSpeciality().getId()).orElseThrow(() -> new EntityNotFoundException(Speciality.class, dto.getSpeciality().getId()));
-            User user = userRepository.findById(dto.getUser().getId()).orElseThrow(() -> new EntityNotFoundException(User.class, dto.getUser().getId()));
+            EntityResolver resolver = new EntityResolver();
+            Speciality speciality = resolver.one(specialityRepository, Speciality.class, dto.getSpeciality().getId());
+            User user = resolver.one(userRepository, User.class, dto.getUser().getId());
+            Set<Course> courses = resolver.all(courseRepository, Course.class, EntityResolver.idsOf(dto.getCourses(), Course::getId), Course::getId);
+            resolver.throwIfMissing();
+
             teacher = Mapper.mapToTeacher(dto);
-            teacher.addSpeciality(speciality);
+            teacher.setCourses(new HashSet<>());
+            teacher.setSpeciality(speciality);
             teacher.addUser(user);
             user.setTeacher(teacher);
+            for (Course course : courses) {
+                teacher.addCourse(course);
+            }
             teacherRepository.save(teacher);
             if (teacher.getId() == null) {
                 throw new Exception("Insert error");
@@ -67,55 +100,91 @@ public class TeacherServiceImpl implements ITeacherService{
      * Updates an existing teacher in database.
      *
      * @param dto The DTO containing updated teacher data.
+     * @param version The version the teacher must still have, or null to update any version.
      * @return The updated teacher entity.
      * @throws EntityNotFoundException If the teacher with the given ID does not exist.
+     * @throws EntityVersionConflictException If the teacher no longer has the given version.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.COURSES, allEntries = true)
     @Override
-    public Teacher updateTeacher(TeacherUpdateDTO dto) throws EntityNotFoundException {
+    public Teacher updateTeacher(TeacherUpdateDTO dto, Long version) throws EntityNotFoundException, EntityVersionConflictException {
         Teacher teacher = null;
-        Teacher updatedTeacher = null;
         try {
-            teacher = teacherRepository.findTeacherById(dto.getId());
+            teacher = teacherRepository.findWithUserById(dto.getId());
             if (teacher == null ) {
                 throw new EntityNotFoundException(Teacher.class, dto.getId());
             }
-            updatedTeacher = Mapper.mapToTeacher(dto);
-            Speciality speciality = specialityRepository.findById(dto.getSpeciality().getId()).orElseThrow(() -> new EntityNotFoundException(Speciality.class, dto.getSpeciality().getId()));
-            User user = userRepository.findById(dto.getUser().getId()).orElseThrow(() -> new EntityNotFoundException(User.class, dto.getUser().getId()));
-            updatedTeacher.addSpeciality(speciality);
-            updatedTeacher.addUser(user);
-            user.setTeacher(updatedTeacher);
-            teacherRepository.save(updatedTeacher);
-            log.info("Teacher with id " + updatedTeacher.getId() + " was updated");
-        } catch (EntityNotFoundException e) {
+            if (version != null && !version.equals(teacher.getVersion())) {
+                throw new EntityVersionConflictException(Teacher.class, dto.getId());
+            }
+            EntityResolver resolver = new EntityResolver();
+            Speciality speciality = resolver.one(specialityRepository, Speciality.class, dto.getSpeciality().getId());
+            User user = resolver.one(userRepository, User.class, dto.getUser().getId());
+            Set<Course> courses = resolver.all(courseRepository, Course.class, EntityResolver.idsOf(dto.getCourses(), Course::getId), Course::getId);
+            resolver.throwIfMissing();
+
+            teacher.setFirstname(dto.getFirstname());
+            teacher.setLastname(dto.getLastname());
+            teacher.setSsn(dto.getSsn());
+            teacher.setEmail(dto.getEmail());
+            teacher.setSpeciality(speciality);
+            if (!user.equals(teacher.getUser())) {
+                if (teacher.getUser() != null) {
+                    eventPublisher.publishEvent(new UserChangedEvent(teacher.getUser().getId(), teacher.getUser().getUsername()));
+                }
+                eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getUsername()));
+            }
+            teacher.addUser(user);
+            Set<Long> courseIds = EntityResolver.idsOf(courses, Course::getId);
+            for (Course course : List.copyOf(teacher.getAllCourses())) {
+                if (!courseIds.contains(course.getId())) {
+                    teacher.removeCourse(course);
+                }
+            }
+            for (Course course : courses) {
+                teacher.addCourse(course);
+            }
+            log.info("Teacher with id " + teacher.getId() + " was updated");
+        } catch (EntityNotFoundException | EntityVersionConflictException e) {
             log.error(e.getMessage());
             throw e;
         }
-        return updatedTeacher;
+        return teacher;
     }
 
     /**
      * Deletes a teacher from database.
      *
      * @param id The ID of the teacher to delete.
+     * @param version The version the teacher must still have, or null to delete any version.
+     * @return The deleted teacher.
      * @throws EntityNotFoundException If the teacher with the given ID does not exist.
+     * @throws EntityVersionConflictException If the teacher no longer has the given version.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.COURSES, allEntries = true)
     @Override
-    public void deleteTeacher(Long id) throws EntityNotFoundException {
+    public Teacher deleteTeacher(Long id, Long version) throws EntityNotFoundException, EntityVersionConflictException {
         Teacher teacher = null;
         try {
-            teacher = teacherRepository.findTeacherById(id);
+            teacher = teacherRepository.findWithUserById(id);
             if (teacher == null ) {
                 throw new EntityNotFoundException(Teacher.class, id);
             }
-            teacherRepository.deleteById(id);
+            if (version != null && !version.equals(teacher.getVersion())) {
+                throw new EntityVersionConflictException(Teacher.class, id);
+            }
+            if (teacher.getUser() != null) {
+                eventPublisher.publishEvent(new UserChangedEvent(teacher.getUser().getId(), teacher.getUser().getUsername()));
+            }
+            teacherRepository.delete(teacher);
             log.info("Teacher with id " + teacher.getId() + " was deleted");
-        } catch (EntityNotFoundException e) {
+        } catch (EntityNotFoundException | EntityVersionConflictException e) {
             log.error(e.getMessage());
             throw e;
         }
+        return teacher;
     }
 
     /**
@@ -125,7 +194,7 @@ public class TeacherServiceImpl implements ITeacherService{
      * @return A list of teachers matching the criteria.
      * @throws EntityNotFoundException If no teachers match the criteria.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public List<Teacher> getTeacherByLastname(String lastname) throws EntityNotFoundException {
         List<Teacher> teachers = new ArrayList<>();
@@ -149,9 +218,30 @@ public class TeacherServiceImpl implements ITeacherService{
      * @return The teacher entity.
      * @throws EntityNotFoundException If the teacher with the given ID does not exist.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public Teacher getTeacherById(Long id) throws EntityNotFoundException {
+        Teacher teacher = null;
+        try {
+            teacher = teacherRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Teacher.class, id));
+            log.info("Teacher with id  " + id + " was found");
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+        return teacher;
+    }
+
+    /**
+     * Retrieves a teacher by ID together with the associations its representation can embed.
+     *
+     * @param id The ID of the teacher to retrieve.
+     * @return The teacher entity.
+     * @throws EntityNotFoundException If the teacher with the given ID does not exist.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public Teacher getTeacherDetailById(Long id) throws EntityNotFoundException {
         Teacher teacher = null;
         try {
             teacher = teacherRepository.findTeacherById(id);
@@ -182,7 +272,7 @@ public class TeacherServiceImpl implements ITeacherService{
                 throw new TeacherAlreadyExistsException(dto.getUsername());
             }
 
-            User user = User.NEW_TEACHER(dto.getUsername(), dto.getPassword());
+            User user = User.NEW_TEACHER(dto.getUsername(), passwordEncoder.encode(dto.getPassword()));
 
             Teacher teacher = Mapper.extractTeacherFromRegisterTeacherDTO(dto);
             teacher.addUser(user);
@@ -202,6 +292,7 @@ public class TeacherServiceImpl implements ITeacherService{
      * @return A list of all teachers.
      * @throws EntityNotFoundException If no teachers are registered in the system.
      */
+    @Transactional(readOnly = true)
     @Override
     public List<Teacher> getAllTeachers() throws EntityNotFoundException {
         List<Teacher> teachers = new ArrayList<>();
@@ -218,6 +309,24 @@ public class TeacherServiceImpl implements ITeacherService{
         return teachers;
     }
 
+    /**
+     * Retrieves a page of teachers ordered by lastname and ID.
+     *
+     * @param after The position of the last teacher of the previous page, or null for the first page.
+     * @param limit The maximum number of teachers to return.
+     * @return A list of at most {@code limit} teachers following the cursor.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Teacher> getTeachersPage(KeysetCursor after, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+        List<Teacher> teachers = (after == null)
+                ? teacherRepository.findAllByOrderByLastnameAscIdAsc(pageable)
+                : teacherRepository.findPageAfter(after.getKey(), after.getId(), pageable);
+        log.info("Retrieved page of " + teachers.size() + " teachers.");
+        return teachers;
+    }
+
     /**
      * Adds a course to a teacher's list of courses.
      *
@@ -226,10 +335,11 @@ public class TeacherServiceImpl implements ITeacherService{
      * @throws EntityNotFoundException If either the teacher or the course with the given IDs does not exist.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.COURSES, allEntries = true)
     @Override
     public void addCourseToTeacher(Long teacherId, Long courseId) throws EntityNotFoundException {
         try {
-            Teacher teacher = teacherRepository.findById(teacherId).orElseThrow(() -> new EntityNotFoundException(Teacher.class, teacherId));
+            Teacher teacher = teacherRepository.findWithCoursesById(teacherId).orElseThrow(() -> new EntityNotFoundException(Teacher.class, teacherId));
             Course course = courseRepository.findById(courseId).orElseThrow(() -> new EntityNotFoundException(Course.class, courseId));
 
             teacher.addCourse(course);
@@ -251,10 +361,11 @@ public class TeacherServiceImpl implements ITeacherService{
      * @throws EntityNotFoundException If either the teacher or the course with the given IDs does not exist.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.COURSES, allEntries = true)
     @Override
     public void removeCourseFromTeacher(Long teacherId, Long courseId) throws EntityNotFoundException {
         try {
-            Teacher teacher = teacherRepository.findById(teacherId).orElseThrow(() -> new EntityNotFoundException(Teacher.class, teacherId));
+            Teacher teacher = teacherRepository.findWithCoursesById(teacherId).orElseThrow(() -> new EntityNotFoundException(Teacher.class, teacherId));
             Course course = courseRepository.findById(courseId).orElseThrow(() -> new EntityNotFoundException(Course.class, courseId));
 
             teacher.removeCourse(course);
@@ -274,11 +385,12 @@ public class TeacherServiceImpl implements ITeacherService{
      * @return    A list of all teacher's  courses.
      * @throws EntityNotFoundException  If either the teacher with the given ID does not exist.
      */
+    @Transactional(readOnly = true)
     @Override
     public List<Course> getTeacherCourses(Long id) throws EntityNotFoundException {
         try {
             List<Course> courses = new ArrayList<>();
-            Teacher teacher = teacherRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Teacher.class, id));
+            Teacher teacher = teacherRepository.findWithCoursesById(id).orElseThrow(() -> new EntityNotFoundException(Teacher.class, id));
             courses = teacher.getAllCourses().stream().toList();
             log.info("Retrieved all courses from teacher with id " + id);
             return courses;
@@ -287,4 +399,99 @@ public class TeacherServiceImpl implements ITeacherService{
             throw e;
         }
     }
+
+    /**
+     * Retrieves the requested fields of a page of teachers ordered by lastname and ID.
+     * The ID and lastname are always selected, as they make up the cursor of the next page.
+     *
+     * @param after  The position of the last teacher of the previous page, or null for the first page.
+     * @param limit  The maximum number of teachers to return.
+     * @param fields The fields to select.
+     * @return A list of at most {@code limit} rows following the cursor.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Map<String, Object>> getTeachersPage(KeysetCursor after, int limit, Collection<String> fields) {
+        Specification<Teacher> spec = (after == null) ? null : (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("lastname"), after.getKey()),
+                cb.and(cb.equal(root.get("lastname"), after.getKey()), cb.greaterThan(root.get("id"), after.getId())));
+        List<Map<String, Object>> teachers = projectionRepository.findFields(Teacher.class,
+                FieldSelection.resolve(fields, FIELDS, "id", "lastname"), spec, Sort.by("lastname", "id"), limit);
+        log.info("Retrieved page of " + teachers.size() + " teachers.");
+        return teachers;
+    }
+
+    /**
+     * Retrieves the requested fields of a teacher by ID.
+     *
+     * @param id     The ID of the teacher to retrieve.
+     * @param fields The fields to select.
+     * @return The selected fields of the teacher.
+     * @throws EntityNotFoundException If the teacher with the given ID does not exist.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public Map<String, Object> getTeacherById(Long id, Collection<String> fields) throws EntityNotFoundException {
+        try {
+            Map<String, Object> teacher = projectionRepository.findFieldsById(Teacher.class, FieldSelection.resolve(fields, FIELDS, "id"), id)
+                    .orElseThrow(() -> new EntityNotFoundException(Teacher.class, id));
+            log.info("Teacher with id  " + id + " was found");
+            return teacher;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the requested fields of the teachers whose lastname starts with the specified string.
+     *
+     * @param lastname The starting substring of lastnames to search for.
+     * @param fields   The fields to select.
+     * @return A list of rows matching the criteria.
+     * @throws EntityNotFoundException If no teachers match the criteria.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Map<String, Object>> getTeacherByLastname(String lastname, Collection<String> fields) throws EntityNotFoundException {
+        try {
+            Specification<Teacher> spec = (root, query, cb) -> cb.like(root.get("lastname"), lastname + "%");
+            List<Map<String, Object>> teachers = projectionRepository.findFields(Teacher.class,
+                    FieldSelection.resolve(fields, FIELDS, "id"), spec, Sort.by("lastname", "id"), 0);
+            if (teachers.isEmpty()) {
+                throw new EntityNotFoundException(Teacher.class, 0L);
+            }
+            log.info("Teachers with lastname starting with " + lastname + " were found");
+            return teachers;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the requested fields of the courses of a teacher.
+     *
+     * @param id     The ID of the teacher.
+     * @param fields The fields of the courses to select.
+     * @return A list of rows, one per course of the teacher.
+     * @throws EntityNotFoundException If the teacher with the given ID does not exist.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Map<String, Object>> getTeacherCourses(Long id, Collection<String> fields) throws EntityNotFoundException {
+        try {
+            if (!teacherRepository.existsById(id)) {
+                throw new EntityNotFoundException(Teacher.class, id);
+            }
+            Specification<Course> spec = (root, query, cb) -> cb.equal(root.get("teacher").get("id"), id);
+            List<Map<String, Object>> courses = projectionRepository.findFields(Course.class,
+                    FieldSelection.resolve(fields, CourseServiceImpl.FIELDS, "id"), spec, Sort.by("id"), 0);
+            log.info("Retrieved all courses from teacher with id " + id);
+            return courses;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
 }
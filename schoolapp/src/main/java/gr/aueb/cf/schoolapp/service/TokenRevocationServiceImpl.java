@@ -0,0 +1,113 @@
+package gr.aueb.cf.schoolapp.service;
+
+import gr.aueb.cf.schoolapp.authentication.util.TokenDenyList;
+import gr.aueb.cf.schoolapp.authentication.util.VerifiedToken;
+import gr.aueb.cf.schoolapp.model.RevokedToken;
+import gr.aueb.cf.schoolapp.repositories.RevokedTokenRepository;
+import gr.aueb.cf.schoolapp.service.events.UserChangedEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Token Revocation Service.
+ * Revocations are written to a table and kept in the in-memory {@link TokenDenyList},
+ * which is what requests are checked against. The list is rebuilt from the table at startup,
+ * so revoked tokens stay revoked across restarts.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TokenRevocationServiceImpl implements ITokenRevocationService {
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TokenDenyList tokenDenyList;
+    private final IRefreshTokenService refreshTokenService;
+
+    @Value("${security.jwt.expiration-time}")
+    private long jwtExpiration;
+
+    /**
+     * Loads the revocations whose tokens have not yet expired into the deny list.
+     */
+    @PostConstruct
+    public void load() {
+        List<RevokedToken> revocations = revokedTokenRepository.findByExpiresAtAfter(Instant.now());
+        for (RevokedToken revocation : revocations) {
+            if (revocation.getTokenId() != null) {
+                tokenDenyList.revokeToken(revocation.getTokenId(), revocation.getExpiresAt());
+            } else {
+                tokenDenyList.revoke(revocation.getUserId(), revocation.getRevokedAt());
+            }
+        }
+        log.info("Loaded " + revocations.size() + " token revocations");
+    }
+
+    /**
+     * Revokes a single access token, typically on logout.
+     *
+     * @param token The token to revoke.
+     */
+    @Transactional
+    @Override
+    public void revokeToken(VerifiedToken token) {
+        if (token.getTokenId() == null) {
+            throw new IllegalArgumentException("Token has no ID");
+        }
+        Instant expiresAt = (token.getExpiration() != null)
+                ? token.getExpiration().toInstant()
+                : Instant.now().plus(Duration.ofMillis(jwtExpiration));
+        revokedTokenRepository.save(new RevokedToken(token.getTokenId(), token.getUserId(), Instant.now(), expiresAt));
+        tokenDenyList.revokeToken(token.getTokenId(), expiresAt);
+        log.info("Token " + token.getTokenId() + " of user with id " + token.getUserId() + " was revoked");
+    }
+
+    /**
+     * Revokes every access and refresh token issued to a user up to now.
+     *
+     * @param userId The ID of the user.
+     */
+    @Transactional
+    @Override
+    public void revokeUser(Long userId) {
+        Instant now = Instant.now();
+        revokedTokenRepository.save(new RevokedToken(null, userId, now, now.plus(Duration.ofMillis(jwtExpiration))));
+        refreshTokenService.revokeAll(userId);
+        tokenDenyList.revoke(userId, now);
+        log.info("Tokens of user with id " + userId + " were revoked");
+    }
+
+    /**
+     * Revokes the tokens of a user that is changed or deleted, once the change is committed,
+     * so that a change that is rolled back revokes nothing and a token issued from the state
+     * before the change cannot outlive it. The revocation is written in a transaction of its own,
+     * as the one of the change has already completed.
+     *
+     * @param event The change.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onUserChanged(UserChangedEvent event) {
+        revokeUser(event.getUserId());
+    }
+
+    /**
+     * Deletes the revocations whose tokens have expired.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.revocation-cleanup-interval:PT1H}")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = revokedTokenRepository.deleteExpired(Instant.now());
+        log.info(deleted + " expired token revocations were deleted");
+    }
+}
@@ -4,21 +4,33 @@ import gr.aueb.cf.schoolapp.dto.UserInsertDTO;
 import gr.aueb.cf.schoolapp.dto.UserUpdateDTO;
 import gr.aueb.cf.schoolapp.mapper.Mapper;
 import gr.aueb.cf.schoolapp.model.*;
+import gr.aueb.cf.schoolapp.repositories.ProjectionRepository;
 import gr.aueb.cf.schoolapp.repositories.StudentRepository;
 import gr.aueb.cf.schoolapp.repositories.TeacherRepository;
 import gr.aueb.cf.schoolapp.repositories.UserRepository;
+import gr.aueb.cf.schoolapp.service.events.UserChangedEvent;
 import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import gr.aueb.cf.schoolapp.service.exceptions.EntityVersionConflictException;
+import gr.aueb.cf.schoolapp.service.exceptions.HashingOverloadedException;
 import gr.aueb.cf.schoolapp.service.exceptions.UserAlreadyExistsException;
 import gr.aueb.cf.schoolapp.service.exceptions.WrongPasswordException;
+import gr.aueb.cf.schoolapp.service.util.FieldSelection;
+import gr.aueb.cf.schoolapp.service.util.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -28,10 +40,19 @@ import java.util.Optional;
 @Slf4j
 @RequiredArgsConstructor
 public class UserServiceImpl implements IUserService{
+    public static final Map<String, String> FIELDS = FieldSelection.fields(
+            "id", "id",
+            "username", "username",
+            "role", "role",
+            "teacherId", "teacher.id",
+            "studentId", "student.id");
+
     private final UserRepository userRepository;
     private final StudentRepository studentRepository;
     private final TeacherRepository teacherRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ProjectionRepository projectionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Inserts a new user into database.
@@ -67,17 +88,23 @@ public class UserServiceImpl implements IUserService{
      * Updates an existing user in database.
      *
      * @param dto The DTO containing updated user data.
+     * @param version The version the user must still have, or null to update any version.
      * @return The updated user entity.
      * @throws EntityNotFoundException If the user with the given ID does not exist.
+     * @throws EntityVersionConflictException If the user no longer has the given version.
      */
     @Transactional
     @Override
-    public User updateUser(UserUpdateDTO dto) throws EntityNotFoundException {
+    public User updateUser(UserUpdateDTO dto, Long version) throws EntityNotFoundException, EntityVersionConflictException {
         try {
             User user = userRepository.findUserById(dto.getId());
             if (user == null) {
                 throw new EntityNotFoundException(User.class, dto.getId());
             }
+            if (version != null && !version.equals(user.getVersion())) {
+                throw new EntityVersionConflictException(User.class, dto.getId());
+            }
+            eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getUsername()));
             if (isAdmin(dto.getRole())) {
                 user.setUsername(dto.getUsername());
                 user.setPassword(passwordEncoder.encode(dto.getPassword())); // Encode the password
@@ -110,7 +137,7 @@ public class UserServiceImpl implements IUserService{
                 log.info("User with id " + updatedUser.getId() + " was updated");
                 return updatedUser;
             }
-        } catch (EntityNotFoundException e) {
+        } catch (EntityNotFoundException | EntityVersionConflictException e) {
             log.error(e.getMessage());
             throw e;
         }
@@ -120,23 +147,31 @@ public class UserServiceImpl implements IUserService{
      * Deletes a user from database.
      *
      * @param id The ID of the user to delete.
+     * @param version The version the user must still have, or null to delete any version.
+     * @return The deleted user.
      * @throws EntityNotFoundException If the user with the given ID does not exist.
+     * @throws EntityVersionConflictException If the user no longer has the given version.
      */
     @Transactional
     @Override
-    public void deleteUser(Long id) throws EntityNotFoundException {
+    public User deleteUser(Long id, Long version) throws EntityNotFoundException, EntityVersionConflictException {
         User user = null;
         try {
             user = userRepository.findUserById(id);
             if (user == null ) {
                 throw new EntityNotFoundException(User.class, id);
             }
-            userRepository.deleteById(id);
+            if (version != null && !version.equals(user.getVersion())) {
+                throw new EntityVersionConflictException(User.class, id);
+            }
+            eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getUsername()));
+            userRepository.delete(user);
             log.info("User with id " + user.getId() + " was deleted");
-        } catch (EntityNotFoundException e) {
+        } catch (EntityNotFoundException | EntityVersionConflictException e) {
             log.error(e.getMessage());
             throw e;
         }
+        return user;
     }
 
     /**
@@ -146,7 +181,7 @@ public class UserServiceImpl implements IUserService{
      * @return A user matching the criteria.
      * @throws EntityNotFoundException If no user match the criteria.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public User getUserByUsername(String username) throws EntityNotFoundException {
         User user = null;
@@ -170,7 +205,7 @@ public class UserServiceImpl implements IUserService{
      * @return The user entity.
      * @throws EntityNotFoundException If the user with the given ID does not exist.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public User getUserById(Long id) throws EntityNotFoundException {
         User user = null;
@@ -194,7 +229,7 @@ public class UserServiceImpl implements IUserService{
      * @return The user entity.
      * @throws UsernameNotFoundException If no user with the given username is found.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     @Override
     public User getByUsername(String username) throws UsernameNotFoundException {
         return userRepository.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException("User with username: " + username + " not found"));
@@ -206,6 +241,7 @@ public class UserServiceImpl implements IUserService{
      * @return A list of all users.
      * @throws EntityNotFoundException If no users are registered in the system.
      */
+    @Transactional(readOnly = true)
     @Override
     public List<User> getAllUsers() throws EntityNotFoundException {
         List<User> users = new ArrayList<>();
@@ -222,8 +258,26 @@ public class UserServiceImpl implements IUserService{
         return users;
     }
 
+    /**
+     * Retrieves a page of users ordered by ID.
+     *
+     * @param after The position of the last user of the previous page, or null for the first page.
+     * @param limit The maximum number of users to return.
+     * @return A list of at most {@code limit} users following the cursor.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<User> getUsersPage(KeysetCursor after, int limit) {
+        Long lastId = (after == null) ? 0L : after.getId();
+        List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, limit));
+        log.info("Retrieved page of " + users.size() + " users.");
+        return users;
+    }
+
     /**
      * Checks if the provided raw password matches the encoded password of the user.
+     * If it matches and the stored hash was made with an outdated algorithm or cost, the password
+     * is hashed again with the current settings and stored, unless it has changed in the meantime.
      *
      * @param user         The user whose password to check.
      * @param rawPassword  The raw (unencoded) password to verify.
@@ -232,7 +286,22 @@ public class UserServiceImpl implements IUserService{
      */
     @Override
     public boolean checkPassword(User user, String rawPassword) throws WrongPasswordException {
-        return passwordEncoder.matches(rawPassword, user.getPassword());
+        String encodedPassword = user.getPassword();
+        if (!passwordEncoder.matches(rawPassword, encodedPassword)) {
+            return false;
+        }
+        if (passwordEncoder.upgradeEncoding(encodedPassword)) {
+            try {
+                String upgradedPassword = passwordEncoder.encode(rawPassword);
+                if (userRepository.updatePassword(user.getId(), encodedPassword, upgradedPassword) == 1) {
+                    user.setPassword(upgradedPassword);
+                    log.info("Password hash of user with id " + user.getId() + " was upgraded");
+                }
+            } catch (HashingOverloadedException e) {
+                log.warn("Password hash of user with id " + user.getId() + " was not upgraded: " + e.getMessage());
+            }
+        }
+        return true;
     }
 
     /**
@@ -267,4 +336,70 @@ public class UserServiceImpl implements IUserService{
     public boolean isTeacher(Role role) {
         return role.name().equals("TEACHER");
     }
+
+    /**
+     * Retrieves the requested fields of a user by ID.
+     *
+     * @param id     The ID of the user to retrieve.
+     * @param fields The fields to select.
+     * @return The selected fields of the user.
+     * @throws EntityNotFoundException If the user with the given ID does not exist.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public Map<String, Object> getUserById(Long id, Collection<String> fields) throws EntityNotFoundException {
+        try {
+            Map<String, Object> user = projectionRepository.findFieldsById(User.class, FieldSelection.resolve(fields, FIELDS, "id"), id)
+                    .orElseThrow(() -> new EntityNotFoundException(User.class, id));
+            log.info("User with id  " + id + " was found");
+            return user;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the requested fields of a user by username.
+     *
+     * @param username The username of the user to retrieve.
+     * @param fields   The fields to select.
+     * @return The selected fields of the user.
+     * @throws EntityNotFoundException If no user has the given username.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public Map<String, Object> getUserByUsername(String username, Collection<String> fields) throws EntityNotFoundException {
+        try {
+            Specification<User> spec = (root, query, cb) -> cb.equal(root.get("username"), username);
+            Map<String, Object> user = projectionRepository.findFields(User.class, FieldSelection.resolve(fields, FIELDS, "id"), spec, Sort.unsorted(), 1)
+                    .stream().findFirst()
+                    .orElseThrow(() -> new EntityNotFoundException(User.class, 0L));
+            log.info("User with " + username + " was found");
+            return user;
+        } catch (EntityNotFoundException e) {
+            log.error(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Retrieves the requested fields of a page of users ordered by ID.
+     * The ID is always selected, as it makes up the cursor of the next page.
+     *
+     * @param after  The position of the last user of the previous page, or null for the first page.
+     * @param limit  The maximum number of users to return.
+     * @param fields The fields to select.
+     * @return A list of at most {@code limit} rows following the cursor.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public List<Map<String, Object>> getUsersPage(KeysetCursor after, int limit, Collection<String> fields) {
+        Long lastId = (after == null) ? 0L : after.getId();
+        Specification<User> spec = (root, query, cb) -> cb.greaterThan(root.get("id"), lastId);
+        List<Map<String, Object>> users = projectionRepository.findFields(User.class,
+                FieldSelection.resolve(fields, FIELDS, "id"), spec, Sort.by("id"), limit);
+        log.info("Retrieved page of " + users.size() + " users.");
+        return users;
+    }
 }
@@ -0,0 +1,16 @@
+package gr.aueb.cf.schoolapp.service.events;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published when the account, role or linked student/teacher of a user
+ * changes or the user is deleted, so that state derived from the user
+ * (issued tokens, cached principals) can be dropped.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserChangedEvent {
+    private final Long userId;
+    private final String username;
+}
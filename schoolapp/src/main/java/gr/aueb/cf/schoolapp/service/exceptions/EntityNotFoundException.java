@@ -1,9 +1,19 @@
 package gr.aueb.cf.schoolapp.service.exceptions;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 public class EntityNotFoundException extends Exception{
     private static final long serialVersionUID = 1L;
 
     public EntityNotFoundException(Class<?> entityClass, Long id) {
         super("Entity " + entityClass.getSimpleName() + " with id " + id + " was not found.");
     }
+
+    public EntityNotFoundException(Map<Class<?>, ? extends Collection<Long>> missing) {
+        super("Entities not found: " + missing.entrySet().stream()
+                .map(entry -> entry.getKey().getSimpleName() + " with ids " + entry.getValue())
+                .collect(Collectors.joining(", ")) + ".");
+    }
 }
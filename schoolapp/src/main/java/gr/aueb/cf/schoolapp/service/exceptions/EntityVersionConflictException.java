@@ -0,0 +1,16 @@
+package gr.aueb.cf.schoolapp.service.exceptions;
+
+import java.io.Serial;
+
+/**
+ * Thrown when an entity is to be changed on the condition that it still has a given version,
+ * and it has been changed since.
+ */
+public class EntityVersionConflictException extends Exception {
+    @Serial
+    private static final long serialVersionUID = 9L;
+
+    public EntityVersionConflictException(Class<?> entityClass, Long id) {
+        super("Entity " + entityClass.getSimpleName() + " with id " + id + " has been changed by another request.");
+    }
+}
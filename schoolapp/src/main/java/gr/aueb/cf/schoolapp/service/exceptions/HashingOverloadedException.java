@@ -0,0 +1,22 @@
+package gr.aueb.cf.schoolapp.service.exceptions;
+
+import lombok.Getter;
+
+import java.io.Serial;
+
+/**
+ * Thrown when the password hashing queue is full and a hash cannot be computed now.
+ * The client should retry after {@link #getRetryAfterSeconds()} seconds.
+ */
+@Getter
+public class HashingOverloadedException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 7L;
+
+    private final long retryAfterSeconds;
+
+    public HashingOverloadedException(long retryAfterSeconds) {
+        super("Password hashing is overloaded");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,15 @@
+package gr.aueb.cf.schoolapp.service.exceptions;
+
+import java.io.Serial;
+
+/**
+ * Thrown when an import is asked to run while it is already running or has completed.
+ */
+public class ImportNotResumableException extends Exception {
+    @Serial
+    private static final long serialVersionUID = 8L;
+
+    public ImportNotResumableException(Long id) {
+        super("Import with id " + id + " is running or has completed");
+    }
+}
@@ -0,0 +1,12 @@
+package gr.aueb.cf.schoolapp.service.exceptions;
+
+import java.io.Serial;
+
+public class InvalidRefreshTokenException extends Exception{
+    @Serial
+    private static final long serialVersionUID = 6L;
+
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
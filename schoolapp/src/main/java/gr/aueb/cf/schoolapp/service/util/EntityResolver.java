@@ -0,0 +1,87 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import gr.aueb.cf.schoolapp.service.exceptions.EntityNotFoundException;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Resolves the entities referenced by a DTO with one query per entity type.
+ * Missing ids are collected instead of failing on the first one, so that
+ * {@link #throwIfMissing()} can report all of them in a single error.
+ */
+public class EntityResolver {
+    private final Map<Class<?>, Set<Long>> missing = new LinkedHashMap<>();
+
+    /**
+     * Resolves a single entity by its ID.
+     *
+     * @param repository  the repository of the entity.
+     * @param entityClass the entity type, used for error reporting.
+     * @param id          the ID to look up.
+     * @param <T>         the entity type.
+     * @return the entity, or null if it does not exist.
+     */
+    public <T> T one(JpaRepository<T, Long> repository, Class<T> entityClass, Long id) {
+        Optional<T> entity = repository.findById(id);
+        if (entity.isEmpty()) {
+            missing.computeIfAbsent(entityClass, k -> new TreeSet<>()).add(id);
+        }
+        return entity.orElse(null);
+    }
+
+    /**
+     * Resolves a set of entities by their IDs with a single query.
+     *
+     * @param repository  the repository of the entities.
+     * @param entityClass the entity type, used for error reporting.
+     * @param ids         the IDs to look up, may be null.
+     * @param idOf        extracts the ID of a resolved entity.
+     * @param <T>         the entity type.
+     * @return the entities that were found.
+     */
+    public <T> Set<T> all(JpaRepository<T, Long> repository, Class<T> entityClass, Collection<Long> ids, Function<T, Long> idOf) {
+        if (ids == null || ids.isEmpty()) return new HashSet<>();
+        Set<Long> wanted = new TreeSet<>();
+        for (Long id : ids) {
+            if (id != null) wanted.add(id);
+        }
+        List<T> found = repository.findAllById(wanted);
+        for (T entity : found) {
+            wanted.remove(idOf.apply(entity));
+        }
+        if (!wanted.isEmpty()) {
+            missing.computeIfAbsent(entityClass, k -> new TreeSet<>()).addAll(wanted);
+        }
+        return new HashSet<>(found);
+    }
+
+    /**
+     * Extracts the IDs of a collection of entity references.
+     *
+     * @param entities the entity references, may be null.
+     * @param idOf     extracts the ID of an entity.
+     * @param <T>      the entity type.
+     * @return the referenced IDs.
+     */
+    public static <T> Set<Long> idsOf(Collection<T> entities, Function<T, Long> idOf) {
+        Set<Long> ids = new HashSet<>();
+        if (entities == null) return ids;
+        for (T entity : entities) {
+            ids.add(idOf.apply(entity));
+        }
+        return ids;
+    }
+
+    /**
+     * Fails if any of the requested entities could not be resolved.
+     *
+     * @throws EntityNotFoundException listing every missing ID, grouped by entity type.
+     */
+    public void throwIfMissing() throws EntityNotFoundException {
+        if (!missing.isEmpty()) {
+            throw new EntityNotFoundException(missing);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes exported rows one at a time, as one JSON object per line or as CSV records.
+ * Nothing is kept once a row is written; the writer only buffers up to its buffer size,
+ * so the memory used does not depend on the number of rows.
+ * CSV columns are the given field names, filled from the JSON form of each row so that
+ * both formats render values the same way.
+ */
+public final class ExportWriter implements Closeable {
+    private static final TypeReference<Map<String, Object>> ROW = new TypeReference<>() {};
+
+    private final FileFormat format;
+    private final List<String> columns;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter objectWriter;
+    private final Writer out;
+
+    public ExportWriter(FileFormat format, List<String> columns, ObjectMapper objectMapper, OutputStream out) throws IOException {
+        this.format = format;
+        this.columns = columns;
+        this.objectMapper = objectMapper;
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == FileFormat.CSV) {
+            writeRecord(columns);
+        }
+    }
+
+    /**
+     * Writes a row.
+     *
+     * @param row the DTO of the row.
+     * @throws IOException if the output cannot be written.
+     */
+    public void write(Object row) throws IOException {
+        if (format == FileFormat.NDJSON) {
+            out.write(objectWriter.writeValueAsString(row));
+            out.write('\n');
+            return;
+        }
+        Map<String, Object> values = objectMapper.convertValue(row, ROW);
+        writeRecord(columns.stream().map(values::get).toList());
+    }
+
+    /**
+     * Flushes the buffered rows. The underlying stream is left open for its owner to finish.
+     */
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+
+    private void writeRecord(List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) out.write(',');
+            Object value = values.get(i);
+            if (value != null) out.write(escape(value.toString()));
+        }
+        out.write("\r\n");
+    }
+
+    /**
+     * Quotes a CSV value if it contains a separator, a quote or a line break, doubling its quotes.
+     */
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,78 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import java.util.*;
+
+/**
+ * Resolves the fields requested through a {@code fields=} query parameter
+ * to the entity attribute paths that have to be selected.
+ */
+public final class FieldSelection {
+
+    private FieldSelection() {}
+
+    /**
+     * Builds an ordered field map from pairs of field names and attribute paths.
+     *
+     * @param namesAndPaths alternating field names and dotted attribute paths.
+     * @return the field map, in declaration order.
+     */
+    public static Map<String, String> fields(String... namesAndPaths) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndPaths.length; i += 2) {
+            fields.put(namesAndPaths[i], namesAndPaths[i + 1]);
+        }
+        return Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * Resolves the requested fields against the fields an entity exposes.
+     * If no fields are requested, every exposed field is selected.
+     *
+     * @param requested the requested field names, may be null.
+     * @param available the fields the entity exposes, mapped to their attribute paths.
+     * @param required  fields that are always selected, such as the ID and the sort keys.
+     * @return the fields to select, mapped to their attribute paths, in the order of {@code available}.
+     * @throws IllegalArgumentException if a requested field is not exposed.
+     */
+    public static Map<String, String> resolve(Collection<String> requested, Map<String, String> available, String... required) {
+        if (!isSparse(requested)) {
+            return available;
+        }
+        Set<String> wanted = new HashSet<>(Arrays.asList(required));
+        for (String field : requested) {
+            String name = field.trim();
+            if (name.isEmpty()) continue;
+            if (!available.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown field " + name);
+            }
+            wanted.add(name);
+        }
+        Map<String, String> selected = new LinkedHashMap<>();
+        for (Map.Entry<String, String> field : available.entrySet()) {
+            if (wanted.contains(field.getKey())) {
+                selected.put(field.getKey(), field.getValue());
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Checks whether a request asks for a sparse fieldset.
+     *
+     * @param fields the requested field names, may be null.
+     * @return true if at least one field was requested.
+     */
+    public static boolean isSparse(Collection<String> fields) {
+        return fields != null && !fields.isEmpty();
+    }
+
+    /**
+     * Builds a cache key for a field selection that does not depend on the order of the fields.
+     *
+     * @param fields the requested field names, may be null.
+     * @return the sorted field names, or {@code *} if no fields were requested.
+     */
+    public static String key(Collection<String> fields) {
+        return isSparse(fields) ? new TreeSet<>(fields).toString() : "*";
+    }
+}
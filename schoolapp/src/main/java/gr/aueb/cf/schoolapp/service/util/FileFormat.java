@@ -0,0 +1,20 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import lombok.Getter;
+
+/**
+ * The file formats in which entities are exported and imported.
+ */
+@Getter
+public enum FileFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    FileFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+}
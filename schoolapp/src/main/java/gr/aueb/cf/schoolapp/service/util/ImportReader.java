@@ -0,0 +1,146 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the rows of an imported file one at a time, as one JSON object per line or as CSV
+ * records with a header. Only the current row is held in memory.
+ * A row that cannot be read into the row type is returned with an error instead of a value,
+ * so that one bad row does not stop the import. Blank lines are skipped and not numbered.
+ */
+public final class ImportReader<T> implements Closeable {
+    private final FileFormat format;
+    private final Class<T> type;
+    private final ObjectMapper objectMapper;
+    private final BufferedReader in;
+    private final List<String> columns;
+    private long rowNumber;
+
+    public ImportReader(FileFormat format, Class<T> type, ObjectMapper objectMapper, InputStream in) throws IOException {
+        this.format = format;
+        this.type = type;
+        this.objectMapper = objectMapper;
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.columns = (format == FileFormat.CSV) ? readRecord() : null;
+        if (format == FileFormat.CSV && columns == null) {
+            throw new EOFException("The CSV header is missing");
+        }
+        if (columns != null && columns.get(0).startsWith("\uFEFF")) {
+            columns.set(0, columns.get(0).substring(1));
+        }
+    }
+
+    /**
+     * Reads the next row.
+     *
+     * @return the row, or null at the end of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    public Row<T> next() throws IOException {
+        return (format == FileFormat.NDJSON) ? nextJson() : nextCsv();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Row<T> nextJson() throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) return null;
+        } while (line.isBlank());
+        if (rowNumber == 0 && line.startsWith("\uFEFF")) {
+            line = line.substring(1);
+        }
+        long number = ++rowNumber;
+        try {
+            return new Row<>(number, objectMapper.readValue(line, type), null);
+        } catch (JsonProcessingException e) {
+            return new Row<>(number, null, "Malformed row: " + e.getOriginalMessage());
+        }
+    }
+
+    private Row<T> nextCsv() throws IOException {
+        List<String> record;
+        do {
+            record = readRecord();
+            if (record == null) return null;
+        } while (record.size() == 1 && record.get(0).isBlank());
+        long number = ++rowNumber;
+        if (record.size() != columns.size()) {
+            return new Row<>(number, null, "Expected " + columns.size() + " columns but found " + record.size());
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            values.put(columns.get(i), record.get(i).isEmpty() ? null : record.get(i));
+        }
+        try {
+            return new Row<>(number, objectMapper.convertValue(values, type), null);
+        } catch (IllegalArgumentException e) {
+            return new Row<>(number, null, "Malformed row: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads one CSV record, which may span lines inside quotes. Quotes inside a quoted value are doubled.
+     *
+     * @return the values of the record, or null at the end of the file.
+     */
+    private List<String> readRecord() throws IOException {
+        int c = in.read();
+        if (c < 0) return null;
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (; c >= 0; c = in.read()) {
+            if (quoted) {
+                if (c != '"') {
+                    value.append((char) c);
+                    continue;
+                }
+                in.mark(1);
+                if (in.read() == '"') {
+                    value.append('"');
+                } else {
+                    in.reset();
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                value.append((char) c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * A row of the file: its number and either its value or the reason it could not be read.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class Row<T> {
+        private final long number;
+        private final T value;
+        private final String error;
+    }
+}
@@ -0,0 +1,101 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position inside a keyset-paginated listing.
+ * A cursor holds the sort key and the id of the last row of a page,
+ * so the next page can be read with an index seek instead of an offset scan.
+ */
+@Getter
+public final class KeysetCursor {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private final Long id;
+    private final String key;
+
+    private KeysetCursor(Long id, String key) {
+        this.id = id;
+        this.key = key;
+    }
+
+    /**
+     * Creates a cursor pointing after the row with the given id.
+     *
+     * @param id the id of the last row returned.
+     * @return the cursor.
+     */
+    public static KeysetCursor of(Long id) {
+        return new KeysetCursor(id, null);
+    }
+
+    /**
+     * Creates a cursor pointing after the row with the given sort key and id.
+     *
+     * @param key the sort key of the last row returned.
+     * @param id  the id of the last row returned.
+     * @return the cursor.
+     */
+    public static KeysetCursor of(String key, Long id) {
+        return new KeysetCursor(id, key);
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @param cursor the encoded cursor, may be null or blank for the first page.
+     * @return the decoded cursor, or null if no cursor was supplied.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = decoded.indexOf(':');
+        if (separator < 1) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        Long id = Long.valueOf(decoded.substring(0, separator));
+        String key = decoded.substring(separator + 1);
+        return new KeysetCursor(id, key.isEmpty() ? null : key);
+    }
+
+    /**
+     * Decodes a cursor of a listing sorted by a key, which must hold that key.
+     *
+     * @param cursor the encoded cursor, may be null or blank for the first page.
+     * @return the decoded cursor, or null if no cursor was supplied.
+     * @throws IllegalArgumentException if the cursor is malformed or has no sort key.
+     */
+    public static KeysetCursor decodeKeyed(String cursor) {
+        KeysetCursor decoded = decode(cursor);
+        if (decoded != null && decoded.key == null) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return decoded;
+    }
+
+    /**
+     * Encodes the cursor as an opaque URL-safe string.
+     *
+     * @return the encoded cursor.
+     */
+    public String encode() {
+        String raw = id + ":" + (key == null ? "" : key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Bounds a requested page size to the range accepted by the list endpoints.
+     *
+     * @param limit the requested page size.
+     * @return the page size to use.
+     */
+    public static int normalizeLimit(Integer limit) {
+        if (limit == null || limit < 1) return DEFAULT_LIMIT;
+        return Math.min(limit, MAX_LIMIT);
+    }
+}
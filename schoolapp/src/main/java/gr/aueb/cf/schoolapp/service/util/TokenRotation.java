@@ -0,0 +1,15 @@
+package gr.aueb.cf.schoolapp.service.util;
+
+import gr.aueb.cf.schoolapp.model.User;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The outcome of a refresh: the user the token belonged to and the refresh token that replaces it.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class TokenRotation {
+    private final User user;
+    private final String refreshToken;
+}
@@ -0,0 +1,58 @@
+package gr.aueb.cf.schoolapp.authentication.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts several keyrings at once on a keystore file that does not exist yet, as nodes
+ * deployed together on a shared directory do, and checks that they all sign with the same key.
+ */
+class JwtKeyringTests {
+    private static final int NODES = 8;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void nodesStartingTogetherShareOneKey() throws Exception {
+        Path path = directory.resolve("jwt.p12");
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(NODES);
+        try {
+            List<Future<JwtKeyring>> nodes = new ArrayList<>();
+            Callable<JwtKeyring> node = () -> {
+                start.await();
+                return new JwtKeyring(path.toString(), "test", false, Duration.ofDays(7), Duration.ofMinutes(1), Duration.ofHours(1).toMillis());
+            };
+            for (int i = 0; i < NODES; i++) {
+                nodes.add(executor.submit(node));
+            }
+            start.countDown();
+
+            JwtKeyring.Keys first = nodes.get(0).get().current();
+            for (Future<JwtKeyring> other : nodes) {
+                JwtKeyring.Keys keys = other.get().current();
+                assertThat(keys.getSigningKeyId()).isEqualTo(first.getSigningKeyId());
+                assertThat(keys.getSigningKey()).isEqualTo(first.getSigningKey());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        try (var files = Files.list(directory)) {
+            assertThat(files).containsExactly(path);
+        }
+    }
+}
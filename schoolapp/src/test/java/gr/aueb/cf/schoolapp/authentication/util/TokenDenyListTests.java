@@ -0,0 +1,65 @@
+package gr.aueb.cf.schoolapp.authentication.util;
+
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks which tokens the deny list rejects after a user is revoked, and that the entry of
+ * a user is dropped once every token it could reject has expired.
+ */
+class TokenDenyListTests {
+    private static final Duration LIFETIME = Duration.ofMinutes(15);
+
+    private TokenDenyList denyList;
+
+    @BeforeEach
+    void setUp() {
+        denyList = new TokenDenyList();
+        ReflectionTestUtils.setField(denyList, "jwtExpiration", LIFETIME.toMillis());
+    }
+
+    @Test
+    void revokedUserTokensIssuedUpToRevocationAreRejected() {
+        Instant now = Instant.now();
+        denyList.revoke(1L, now);
+
+        assertThat(denyList.isRevoked(token(1L, now.minusSeconds(60)))).isTrue();
+        assertThat(denyList.isRevoked(token(1L, now.plusSeconds(2)))).isFalse();
+        assertThat(denyList.isRevoked(token(2L, now.minusSeconds(60)))).isFalse();
+    }
+
+    @Test
+    void userEntryIsDroppedOnceItsTokensHaveExpired() {
+        Instant past = Instant.now().minus(LIFETIME).minusSeconds(10);
+        denyList.revoke(1L, past);
+        denyList.evictExpired();
+
+        assertThat(denyList.isRevoked(token(1L, past.minusSeconds(60)))).isFalse();
+    }
+
+    @Test
+    void laterRevocationOutlivesExpiryOfEarlierOne() {
+        Instant now = Instant.now();
+        denyList.revoke(1L, now.minus(LIFETIME).minusSeconds(10));
+        denyList.revoke(1L, now);
+        denyList.evictExpired();
+
+        assertThat(denyList.isRevoked(token(1L, now.minusSeconds(60)))).isTrue();
+    }
+
+    private static VerifiedToken token(Long userId, Instant issuedAt) {
+        return new VerifiedToken(Jwts.claims()
+                .subject("user" + userId)
+                .add(JwtUtil.USER_ID, userId)
+                .issuedAt(Date.from(issuedAt))
+                .build());
+    }
+}
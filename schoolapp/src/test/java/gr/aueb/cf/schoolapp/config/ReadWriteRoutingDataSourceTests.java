@@ -0,0 +1,138 @@
+package gr.aueb.cf.schoolapp.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks on two embedded databases, each marked with its name, that {@link DataSourceConfig} sends
+ * read-only transactions to the replica and everything else to the primary, and that a request
+ * keeps reading from the primary once it has written.
+ */
+@SpringBootTest(classes = ReadWriteRoutingDataSourceTests.Config.class, webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "datasource.replica.username=sa",
+        "datasource.replica.password=",
+        "datasource.replica.driver-class-name=org.h2.Driver"
+})
+class ReadWriteRoutingDataSourceTests {
+
+    @Configuration
+    @Import(DataSourceConfig.class)
+    @EnableConfigurationProperties({DataSourceProperties.class, JpaProperties.class})
+    static class Config {
+
+        @Bean
+        public PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        mark(primaryDataSource, "primary");
+        mark(replicaDataSource, "replica");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionRunsOnReplica() {
+        assertThat(databaseIn(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    void readWriteTransactionRunsOnPrimary() {
+        assertThat(databaseIn(readWrite)).isEqualTo("primary");
+    }
+
+    @Test
+    void statementOutsideTransactionRunsOnPrimary() {
+        assertThat(database()).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyTransactionAfterWriteInSameRequestRunsOnPrimary() {
+        startRequest();
+        assertThat(databaseIn(readOnly)).isEqualTo("replica");
+        assertThat(databaseIn(readWrite)).isEqualTo("primary");
+        assertThat(databaseIn(readOnly)).isEqualTo("primary");
+
+        startRequest();
+        assertThat(databaseIn(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    void writeOutsideRequestDoesNotPinLaterReads() {
+        assertThat(databaseIn(readWrite)).isEqualTo("primary");
+        assertThat(databaseIn(readOnly)).isEqualTo("replica");
+    }
+
+    private String databaseIn(TransactionTemplate transaction) {
+        return transaction.execute(status -> database());
+    }
+
+    private String database() {
+        return jdbcTemplate.queryForObject("SELECT name FROM route", String.class);
+    }
+
+    private static void startRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    private static void mark(DataSource dataSource, String name) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS route (name VARCHAR(16))");
+        jdbcTemplate.update("DELETE FROM route");
+        jdbcTemplate.update("INSERT INTO route (name) VALUES (?)", name);
+    }
+}
@@ -0,0 +1,161 @@
+package gr.aueb.cf.schoolapp.repositories;
+
+import gr.aueb.cf.schoolapp.authentication.util.CachedUserDetails;
+import gr.aueb.cf.schoolapp.mapper.Mapper;
+import gr.aueb.cf.schoolapp.model.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the SQL statements of the fetch plans behind the list, detail and authentication paths,
+ * including the mapping to DTOs that the endpoints do afterwards, and checks that the count does not
+ * grow with the number of rows or associations returned.
+ * Each path runs on an empty persistence context, as the first use of an entity in a request would.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class FetchPlanQueryCountTests {
+    private static final int ROWS = 10;
+    private static final Set<String> EXPAND_LIST = Set.of("city", "user");
+    private static final Set<String> EXPAND_STUDENT = Set.of("city", "user", "courses");
+    private static final Set<String> EXPAND_TEACHER = Set.of("speciality", "user", "courses");
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+    private final List<Student> students = new ArrayList<>();
+    private final List<Teacher> teachers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        City city = entityManager.persist(new City(null, "Athens", new HashSet<>()));
+        Speciality speciality = entityManager.persist(new Speciality(null, "Informatics", new HashSet<>()));
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Teacher teacher = new Teacher();
+            teacher.setFirstname("Teacher");
+            teacher.setLastname(String.format("Teacher%02d", i));
+            teacher.setEmail("teacher" + i + "@aueb.gr");
+            teacher.setSpeciality(speciality);
+            teacher.addUser(User.NEW_TEACHER("teacher" + i, "password"));
+            teachers.add(entityManager.persist(teacher));
+
+            Course course = new Course(null, "Course" + i, null, new HashSet<>());
+            course.setTeacher(teacher);
+            courses.add(entityManager.persist(course));
+        }
+        for (int i = 0; i < ROWS; i++) {
+            Student student = new Student();
+            student.setFirstname("Student");
+            student.setLastname(String.format("Student%02d", i));
+            student.setGender(Gender.F);
+            student.setEmail("student" + i + "@aueb.gr");
+            student.setCity(city);
+            student.addUser(User.NEW_STUDENT("student" + i, "password"));
+            students.add(entityManager.persist(student));
+            for (Course course : courses.subList(0, i + 1)) {
+                entityManager.persist(student.enroll(course));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void studentListDoesNotGrowWithPageSize() {
+        long small = count(() -> studentRepository.findAllByOrderByLastnameAscIdAsc(PageRequest.of(0, 2))
+                .forEach(student -> Mapper.mapStudentToReadOnly(student, EXPAND_LIST)));
+        long large = count(() -> studentRepository.findAllByOrderByLastnameAscIdAsc(PageRequest.of(0, ROWS))
+                .forEach(student -> Mapper.mapStudentToReadOnly(student, EXPAND_LIST)));
+
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void studentDetailDoesNotGrowWithCourses() {
+        long fewCourses = count(() -> Mapper.mapStudentToReadOnly(
+                studentRepository.findStudentById(students.get(0).getId()), EXPAND_STUDENT));
+        long manyCourses = count(() -> Mapper.mapStudentToReadOnly(
+                studentRepository.findStudentById(students.get(ROWS - 1).getId()), EXPAND_STUDENT));
+
+        assertThat(manyCourses).isEqualTo(fewCourses);
+    }
+
+    @Test
+    void teacherListDoesNotGrowWithPageSize() {
+        long small = count(() -> teacherRepository.findAllByOrderByLastnameAscIdAsc(PageRequest.of(0, 2))
+                .forEach(teacher -> Mapper.mapTeacherToReadOnly(teacher, Set.of("speciality", "user"))));
+        long large = count(() -> teacherRepository.findAllByOrderByLastnameAscIdAsc(PageRequest.of(0, ROWS))
+                .forEach(teacher -> Mapper.mapTeacherToReadOnly(teacher, Set.of("speciality", "user"))));
+
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void teacherDetailDoesNotDependOnTheTeacher() {
+        long first = count(() -> Mapper.mapTeacherToReadOnly(
+                teacherRepository.findTeacherById(teachers.get(0).getId()), EXPAND_TEACHER));
+        long last = count(() -> Mapper.mapTeacherToReadOnly(
+                teacherRepository.findTeacherById(teachers.get(ROWS - 1).getId()), EXPAND_TEACHER));
+
+        assertThat(last).isEqualTo(first);
+    }
+
+    @Test
+    void userListDoesNotGrowWithPageSize() {
+        long small = count(() -> userRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 2))
+                .forEach(Mapper::mapUserToReadOnly));
+        long large = count(() -> userRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 2 * ROWS))
+                .forEach(Mapper::mapUserToReadOnly));
+
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void authenticationTakesOneStatementForStudentsAndTeachers() {
+        long student = count(() -> userRepository.findByUsername("student" + (ROWS - 1)).map(CachedUserDetails::of).orElseThrow());
+        long teacher = count(() -> userRepository.findByUsername("teacher0").map(CachedUserDetails::of).orElseThrow());
+
+        assertThat(student).isEqualTo(1);
+        assertThat(teacher).isEqualTo(1);
+    }
+
+    /**
+     * Runs a path on an empty persistence context and returns the number of statements it prepared.
+     */
+    private long count(Runnable path) {
+        entityManager.clear();
+        statistics.clear();
+        path.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,98 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.aueb.cf.schoolapp.model.User;
+import gr.aueb.cf.schoolapp.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the login, refresh and logout endpoints through the security filters on an embedded database.
+ * Every test logs in its own user, so the tests do not depend on each other.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LoginRestControllerTests {
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private String username;
+
+    @BeforeEach
+    void setUp() {
+        username = "user-" + UUID.randomUUID().toString().substring(0, 8);
+        userRepository.save(User.NEW_STUDENT(username, passwordEncoder.encode(PASSWORD)));
+    }
+
+    @Test
+    void reusedRefreshTokenRevokesItsFamily() throws Exception {
+        String first = login().get("refresh_token").asText();
+
+        String second = refresh(first, 200).get("refresh_token").asText();
+
+        refresh(first, 401);
+        refresh(second, 401);
+    }
+
+    @Test
+    void loggedOutAccessTokenIsRejected() throws Exception {
+        String token = login().get("access_token").asText();
+        mockMvc.perform(get("/api/users/{username}", username)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/logout")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/users/{username}", username)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private JsonNode login() throws Exception {
+        String body = mockMvc.perform(post("/api/login/")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", username, "password", PASSWORD))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private JsonNode refresh(String refreshToken, int expectedStatus) throws Exception {
+        String body = mockMvc.perform(post("/api/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refresh_token", refreshToken))))
+                .andExpect(status().is(expectedStatus))
+                .andReturn().getResponse().getContentAsString();
+        return body.isEmpty() ? null : objectMapper.readTree(body);
+    }
+}
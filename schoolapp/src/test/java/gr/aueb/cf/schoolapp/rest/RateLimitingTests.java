@@ -0,0 +1,118 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.aueb.cf.schoolapp.model.User;
+import gr.aueb.cf.schoolapp.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs requests past the login throttle and the per-user rate limit with limits low enough to reach in a test.
+ * Every test uses its own user and client addresses, as the limits are kept for the life of the context.
+ * The spies make this a context of its own, so it gets a database of its own: a context creating the
+ * schema drops the ID generator table under the contexts already running.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rate-limiting;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "security.login-throttle.username.capacity=3",
+        "security.rate-limit.roles.STUDENT.capacity=3"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RateLimitingTests {
+    private static final String PASSWORD = "password";
+    private static final AtomicInteger NETWORKS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @SpyBean
+    private UserRepository userRepository;
+
+    @SpyBean
+    private PasswordEncoder passwordEncoder;
+
+    private String username;
+    private String network;
+
+    @BeforeEach
+    void setUp() {
+        username = "user-" + UUID.randomUUID().toString().substring(0, 8);
+        network = "10.0." + NETWORKS.incrementAndGet() + ".";
+        userRepository.save(User.NEW_STUDENT(username, passwordEncoder.encode(PASSWORD)));
+    }
+
+    @Test
+    void failedLoginsOnUsernameAreThrottledBeforeLookupAndHash() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            login(PASSWORD + "-wrong", network + i).andExpect(status().isUnauthorized());
+        }
+        clearInvocations(userRepository, passwordEncoder);
+
+        login(PASSWORD, network + 10)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+
+        verifyNoInteractions(userRepository, passwordEncoder);
+    }
+
+    @Test
+    void successfulLoginsDoNotUseUpUsernameLimit() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            login(PASSWORD, network + i).andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void requestsOverUserRateLimitAreRejected() throws Exception {
+        String body = login(PASSWORD, network + 0)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String token = objectMapper.readTree(body).get("access_token").asText();
+
+        for (int remaining = 2; remaining >= 0; remaining--) {
+            mockMvc.perform(get("/api/students/by-gender").param("gender", "F")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andExpect(header().string("RateLimit-Limit", "3"))
+                    .andExpect(header().string("RateLimit-Remaining", String.valueOf(remaining)));
+        }
+        mockMvc.perform(get("/api/students/by-gender").param("gender", "F")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+    }
+
+    private ResultActions login(String password, String address) throws Exception {
+        return mockMvc.perform(post("/api/login/")
+                .with(request -> {
+                    request.setRemoteAddr(address);
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("username", username, "password", password))));
+    }
+}
@@ -0,0 +1,130 @@
+package gr.aueb.cf.schoolapp.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.aueb.cf.schoolapp.model.Gender;
+import gr.aueb.cf.schoolapp.model.Student;
+import gr.aueb.cf.schoolapp.model.User;
+import gr.aueb.cf.schoolapp.repositories.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the student endpoints through the security filters on an embedded database, as a student
+ * who logged in with a token carrying the ID of their student.
+ * Covers the ownership checks and the {@code If-Match} condition on updates.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StudentRestControllerTests {
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private Student student;
+    private Student other;
+    private String token;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        student = student();
+        other = student();
+        String body = mockMvc.perform(post("/api/login/")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", student.getUser().getUsername(), "password", PASSWORD))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        token = objectMapper.readTree(body).get("access_token").asText();
+    }
+
+    @Test
+    void studentReadsOwnStudent() throws Exception {
+        mockMvc.perform(authorized(get("/api/students/{id}", student.getId())))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void studentCannotReadAnotherStudent() throws Exception {
+        mockMvc.perform(authorized(get("/api/students/{id}", other.getId())))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void studentCannotUpdateAnotherStudent() throws Exception {
+        mockMvc.perform(authorized(put("/api/students/{id}", other.getId()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(update(other)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void updateWithStaleIfMatchFailsAndLeavesStudentUnchanged() throws Exception {
+        String eTag = mockMvc.perform(authorized(get("/api/students/{id}", student.getId())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(authorized(put("/api/students/{id}", student.getId()))
+                        .header(HttpHeaders.IF_MATCH, "\"" + (student.getVersion() + 1) + "\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(update(student)))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(authorized(get("/api/students/{id}", student.getId())))
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(jsonPath("$.firstname").value(student.getFirstname()));
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+
+    private String update(Student target) throws Exception {
+        return objectMapper.writeValueAsString(Map.of(
+                "id", target.getId(),
+                "firstname", "Renamed",
+                "lastname", target.getLastname(),
+                "gender", Gender.F,
+                "email", target.getEmail(),
+                "user", Map.of("id", target.getUser().getId())));
+    }
+
+    private Student student() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Student student = new Student();
+        student.setFirstname("Student");
+        student.setLastname("Student" + suffix);
+        student.setGender(Gender.F);
+        student.setEmail("student-" + suffix + "@aueb.gr");
+        student.addUser(User.NEW_STUDENT("student-" + suffix, passwordEncoder.encode(PASSWORD)));
+        return studentRepository.save(student);
+    }
+}